@@ -4,10 +4,13 @@ import ecdar.abstractions.Component;
 import ecdar.abstractions.Project;
 import ecdar.backend.BackendDriver;
 import ecdar.backend.BackendHelper;
+import ecdar.backend.BackgroundQueryScheduler;
+import ecdar.backend.QueryDependencyGraph;
 import ecdar.backend.QueryHandler;
 import ecdar.backend.SimulationHandler;
 import ecdar.code_analysis.CodeAnalysis;
 import ecdar.controllers.EcdarController;
+import ecdar.presentations.BackendMetricsPresentation;
 import ecdar.presentations.BackgroundThreadPresentation;
 import ecdar.presentations.EcdarPresentation;
 import ecdar.presentations.UndoRedoHistoryPresentation;
@@ -52,10 +55,12 @@ public class Ecdar extends Application {
     private static EcdarPresentation presentation;
     private static BooleanProperty isUICached = new SimpleBooleanProperty();
     public static BooleanProperty shouldRunBackgroundQueries = new SimpleBooleanProperty(true);
+    public static BooleanProperty shouldPrefetchSimulationSteps = new SimpleBooleanProperty(false);
     private static final BooleanProperty isSplit = new SimpleBooleanProperty(true); //Set to true to ensure correct behaviour at first toggle.
     private static BackendDriver backendDriver = new BackendDriver();
     private static QueryHandler queryHandler = new QueryHandler(backendDriver);
     private static SimulationHandler simulationHandler;
+    private static final QueryDependencyGraph queryDependencyGraph = new QueryDependencyGraph();
     private Stage debugStage;
 
     /**
@@ -138,6 +143,14 @@ public class Ecdar extends Application {
 
     public static SimulationHandler getSimulationHandler() { return simulationHandler; }
 
+    /**
+     * Returns the dependencies of the queries of the project on its components and systems
+     * @return QueryDependencyGraph
+     */
+    public static QueryDependencyGraph getQueryDependencyGraph() {
+        return queryDependencyGraph;
+    }
+
     public static void setSimulationHandler(SimulationHandler simHandler) {
         simulationHandler = simHandler;
     }
@@ -181,6 +194,16 @@ public class Ecdar extends Application {
         return shouldRunBackgroundQueries;
     }
 
+    /**
+     * Toggles whether the successors of the current simulation state are prefetched.
+     * Prefetching makes stepping through a simulation faster at the cost of extra load on the engine.
+     * @return the property specifying whether to prefetch simulation steps
+     */
+    public static BooleanProperty toggleSimulationStepPrefetching() {
+        shouldPrefetchSimulationSteps.set(!shouldPrefetchSimulationSteps.get());
+        return shouldPrefetchSimulationSteps;
+    }
+
     public static BooleanProperty toggleQueryPane() {
         return presentation.toggleRightPane();
     }
@@ -222,6 +245,11 @@ public class Ecdar extends Application {
         // Load or create new project
         project = new Project();
         simulationHandler = new SimulationHandler(getBackendDriver());
+        simulationHandler.prefetchEnabledProperty().bind(shouldPrefetchSimulationSteps);
+
+        // Re-verify the periodic queries and components in the background, as the project is edited
+        queryDependencyGraph.watch(project);
+        new BackgroundQueryScheduler(queryHandler, queryDependencyGraph, shouldRunBackgroundQueries, Platform::runLater).watch(project);
 
         // Set the title for the application
         stage.setTitle("Ecdar " + VERSION);
@@ -295,19 +323,24 @@ public class Ecdar extends Application {
             final BackgroundThreadPresentation backgroundThreadPresentation = new BackgroundThreadPresentation();
             backgroundThreadPresentation.setMinWidth(100);
 
-            final HBox root = new HBox(undoRedoHistoryPresentation, backgroundThreadPresentation);
+            final BackendMetricsPresentation backendMetricsPresentation = new BackendMetricsPresentation();
+            backendMetricsPresentation.setMinWidth(100);
+
+            final HBox root = new HBox(undoRedoHistoryPresentation, backgroundThreadPresentation, backendMetricsPresentation);
             root.setStyle("-fx-background-color: brown;");
             HBox.setHgrow(undoRedoHistoryPresentation, Priority.ALWAYS);
             HBox.setHgrow(backgroundThreadPresentation, Priority.ALWAYS);
+            HBox.setHgrow(backendMetricsPresentation, Priority.ALWAYS);
 
 
             debugStage = new Stage();
             debugStage.setScene(new Scene(root));
+            debugStage.setOnHidden(event -> backendMetricsPresentation.getController().stopRefreshing());
 
             debugStage.getScene().getStylesheets().add("ecdar/main.css");
             debugStage.getScene().getStylesheets().add("ecdar/colors.css");
 
-            debugStage.setWidth(screen.getVisualBounds().getWidth() * 0.2);
+            debugStage.setWidth(screen.getVisualBounds().getWidth() * 0.4);
             debugStage.setHeight(screen.getVisualBounds().getWidth() * 0.3);
 
             debugStage.show();
@@ -330,8 +363,8 @@ public class Ecdar extends Application {
         });
 
         BackendHelper.addBackendInstanceListener(() -> {
-            // When the backend instances change, re-instantiate the backendDriver
-            // to prevent dangling connections and queries
+            // When the backend instances change, close all connections to prevent dangling connections and queries.
+            // The driver is kept, as the query and simulation handlers reference it
             try {
                 backendDriver.closeAllBackendConnections();
                 queryHandler.closeAllBackendConnections();
@@ -340,8 +373,11 @@ public class Ecdar extends Application {
                 throw new RuntimeException(e);
             }
 
-            backendDriver = new BackendDriver();
+            backendDriver.warmUp(BackendHelper.getBackendInstances());
         });
+
+        // Start the engines before the first query, such that it does not wait for them to boot
+        backendDriver.warmUp(BackendHelper.getBackendInstances());
     }
 
     /**
@@ -379,6 +415,9 @@ public class Ecdar extends Application {
         Ecdar.getProject().deserialize(directory);
         CodeAnalysis.enable();
 
+        // Replace the connections leased during the previous project, if any
+        backendDriver.warmUp(BackendHelper.getBackendInstances());
+
         // Generate all component presentations by making them the active component in the view one by one
         Component initialShownComponent = null;
         for (final Component component : Ecdar.getProject().getComponents()) {
@@ -13,6 +13,9 @@ public class BackendInstance implements Serializable {
     private static final String PORT_RANGE_END = "portRangeEnd";
     private static final String LOCKED = "locked";
     private static final String IS_THREAD_SAFE = "isThreadSafe";
+    private static final String WARM_POOL_SIZE = "warmPoolSize";
+    private static final String MAX_CALLS_PER_CONNECTION = "maxCallsPerConnection";
+    private static final String COMPRESS_MESSAGES = "compressMessages";
 
     private String name;
     private boolean isLocal;
@@ -21,6 +24,9 @@ public class BackendInstance implements Serializable {
     private String backendLocation;
     private int portStart;
     private int portEnd;
+    private int warmPoolSize;
+    private int maxCallsPerConnection = Runtime.getRuntime().availableProcessors();
+    private boolean compressMessages;
     private SimpleBooleanProperty locked = new SimpleBooleanProperty(false);
 
     public BackendInstance() {};
@@ -85,6 +91,47 @@ public class BackendInstance implements Serializable {
         this.portEnd = portEnd;
     }
 
+    /**
+     * Get the number of idle connections to keep started, such that requests do not wait for the engine to start
+     *
+     * @return the number of idle connections to keep
+     */
+    public int getWarmPoolSize() {
+        return warmPoolSize;
+    }
+
+    public void setWarmPoolSize(int warmPoolSize) {
+        this.warmPoolSize = warmPoolSize;
+    }
+
+    /**
+     * Get the number of calls a connection to a thread-safe backend should run at the same time,
+     * before requests are spread to another connection within the port range
+     *
+     * @return the maximum number of calls in flight on a connection
+     */
+    public int getMaxCallsPerConnection() {
+        return maxCallsPerConnection;
+    }
+
+    public void setMaxCallsPerConnection(int maxCallsPerConnection) {
+        this.maxCallsPerConnection = maxCallsPerConnection;
+    }
+
+    /**
+     * Whether requests to the backend are compressed with gzip, which reduces the size of the repetitive
+     * component JSON sent to engines across slow links, at the cost of CPU time on both ends
+     *
+     * @return true if requests are compressed
+     */
+    public boolean isCompressMessages() {
+        return compressMessages;
+    }
+
+    public void setCompressMessages(boolean compressMessages) {
+        this.compressMessages = compressMessages;
+    }
+
     public int getNumberOfInstances() {
         return this.portEnd - this.portStart;
     }
@@ -107,6 +154,9 @@ public class BackendInstance implements Serializable {
         result.addProperty(LOCATION, getBackendLocation());
         result.addProperty(PORT_RANGE_START, getPortStart());
         result.addProperty(PORT_RANGE_END, getPortEnd());
+        result.addProperty(WARM_POOL_SIZE, getWarmPoolSize());
+        result.addProperty(MAX_CALLS_PER_CONNECTION, getMaxCallsPerConnection());
+        result.addProperty(COMPRESS_MESSAGES, isCompressMessages());
         result.addProperty(LOCKED, getLockedProperty().get());
 
         return result;
@@ -121,6 +171,9 @@ public class BackendInstance implements Serializable {
         setBackendLocation(json.getAsJsonPrimitive(LOCATION).getAsString());
         setPortStart(json.getAsJsonPrimitive(PORT_RANGE_START).getAsInt());
         setPortEnd(json.getAsJsonPrimitive(PORT_RANGE_END).getAsInt());
+        if (json.has(WARM_POOL_SIZE)) setWarmPoolSize(json.getAsJsonPrimitive(WARM_POOL_SIZE).getAsInt());
+        if (json.has(MAX_CALLS_PER_CONNECTION)) setMaxCallsPerConnection(json.getAsJsonPrimitive(MAX_CALLS_PER_CONNECTION).getAsInt());
+        if (json.has(COMPRESS_MESSAGES)) setCompressMessages(json.getAsJsonPrimitive(COMPRESS_MESSAGES).getAsBoolean());
         if (json.getAsJsonPrimitive(LOCKED).getAsBoolean()) lockInstance();
     }
 
@@ -10,6 +10,7 @@ import ecdar.utility.UndoRedoStack;
 import ecdar.utility.colors.Color;
 import ecdar.utility.colors.EnabledColor;
 import ecdar.utility.helpers.Boxed;
+import com.google.common.hash.Hashing;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import ecdar.utility.helpers.MouseCircular;
@@ -24,7 +25,10 @@ import javafx.collections.transformation.FilteredList;
 import javafx.util.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -58,6 +62,15 @@ public class Component extends HighLevelModelObject implements Boxed {
     private final BooleanProperty declarationOpen = new SimpleBooleanProperty(false);
     private final BooleanProperty firsTimeShown = new SimpleBooleanProperty(false);
 
+    // Serialization cache, invalidated when any serialized property of the component changes
+    private final InvalidationListener serializationInvalidator = observable -> invalidateSerialization();
+    private final ListChangeListener<Location> locationSerializationListener = serializationListener(this::trackLocationSerialization, this::untrackLocationSerialization);
+    private final ListChangeListener<DisplayableEdge> edgeSerializationListener = serializationListener(this::trackEdgeSerialization, this::untrackEdgeSerialization);
+    private final ListChangeListener<Nail> nailSerializationListener = serializationListener(this::trackNailSerialization, this::untrackNailSerialization);
+    private String serializedJson = null;
+    private String serializationDigest = null;
+    private final List<Runnable> modificationListeners = new CopyOnWriteArrayList<>();
+
     public Location previousLocationForDraggedEdge;
     public boolean getIsFailing(){return isFailing.get();}
     public BooleanProperty getIsFailingProperty(){return isFailing;}
@@ -70,6 +83,7 @@ public class Component extends HighLevelModelObject implements Boxed {
      * Constructs an empty component
      */
     public Component() {
+        initializeSerializationListeners();
     }
 
     /**
@@ -96,6 +110,7 @@ public class Component extends HighLevelModelObject implements Boxed {
 
         locations.add(initialLocation);
         initializeIOListeners();
+        initializeSerializationListeners();
     }
 
     public Component(final JsonObject json) {
@@ -104,6 +119,7 @@ public class Component extends HighLevelModelObject implements Boxed {
         deserialize(json);
         initializeIOListeners();
         updateIOList();
+        initializeSerializationListeners();
     }
 
     /**
@@ -389,6 +405,114 @@ public class Component extends HighLevelModelObject implements Boxed {
         edges.forEach(edge -> getEdgeOrSubEdges(edge).forEach(subEdge -> addSyncListener(listener, subEdge)));
     }
 
+    /**
+     * Initialises the listeners invalidating the cached serialization of this component.
+     * Listeners are added to the properties of the component, and to all current and future locations, edges and nails.
+     */
+    private void initializeSerializationListeners() {
+        List.of(nameProperty(), colorProperty(), declarationsText, description, includeInPeriodicCheck,
+                box.getXProperty(), box.getYProperty(), box.getWidthProperty(), box.getHeightProperty())
+                .forEach(property -> property.addListener(serializationInvalidator));
+
+        locations.addListener(locationSerializationListener);
+        locations.forEach(this::trackLocationSerialization);
+        edges.addListener(edgeSerializationListener);
+        edges.forEach(this::trackEdgeSerialization);
+    }
+
+    private <T> ListChangeListener<T> serializationListener(final Consumer<T> track, final Consumer<T> untrack) {
+        return change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(untrack);
+                change.getAddedSubList().forEach(track);
+            }
+            invalidateSerialization();
+        };
+    }
+
+    private void trackLocationSerialization(final Location location) {
+        location.getSerializedProperties().forEach(property -> property.addListener(serializationInvalidator));
+    }
+
+    private void untrackLocationSerialization(final Location location) {
+        location.getSerializedProperties().forEach(property -> property.removeListener(serializationInvalidator));
+    }
+
+    private void trackEdgeSerialization(final DisplayableEdge edge) {
+        if (edge instanceof GroupedEdge) {
+            ((GroupedEdge) edge).getEdges().addListener(edgeSerializationListener);
+            ((GroupedEdge) edge).getEdges().forEach(this::trackEdgeSerialization);
+        } else if (edge instanceof Edge) {
+            ((Edge) edge).getSerializedProperties().forEach(property -> property.addListener(serializationInvalidator));
+            edge.getNails().addListener(nailSerializationListener);
+            edge.getNails().forEach(this::trackNailSerialization);
+        }
+    }
+
+    private void untrackEdgeSerialization(final DisplayableEdge edge) {
+        if (edge instanceof GroupedEdge) {
+            ((GroupedEdge) edge).getEdges().removeListener(edgeSerializationListener);
+            ((GroupedEdge) edge).getEdges().forEach(this::untrackEdgeSerialization);
+        } else if (edge instanceof Edge) {
+            ((Edge) edge).getSerializedProperties().forEach(property -> property.removeListener(serializationInvalidator));
+            edge.getNails().removeListener(nailSerializationListener);
+            edge.getNails().forEach(this::untrackNailSerialization);
+        }
+    }
+
+    private void trackNailSerialization(final Nail nail) {
+        nail.getSerializedProperties().forEach(property -> property.addListener(serializationInvalidator));
+    }
+
+    private void untrackNailSerialization(final Nail nail) {
+        nail.getSerializedProperties().forEach(property -> property.removeListener(serializationInvalidator));
+    }
+
+    private void invalidateSerialization() {
+        synchronized (this) {
+            serializedJson = null;
+            serializationDigest = null;
+        }
+        modificationListeners.forEach(Runnable::run);
+    }
+
+    /**
+     * Adds a listener that is run whenever the serialized content of this component changes,
+     * such as when a location is moved or a guard is edited.
+     * @param listener the listener
+     */
+    public void addModificationListener(final Runnable listener) {
+        modificationListeners.add(listener);
+    }
+
+    public void removeModificationListener(final Runnable listener) {
+        modificationListeners.remove(listener);
+    }
+
+    /**
+     * Gets the serialization of this component as a JSON string.
+     * The string is cached until the component or any of its locations, edges or nails change.
+     * @return the JSON string
+     */
+    public synchronized String getSerializedJson() {
+        if (serializedJson == null) {
+            serializedJson = serialize().toString();
+        }
+        return serializedJson;
+    }
+
+    /**
+     * Gets a digest of the serialization of this component, which is stable across sessions.
+     * Components with the same content have the same digest.
+     * @return the SHA-256 hash of the serialization as a hex string
+     */
+    public synchronized String getSerializationDigest() {
+        if (serializationDigest == null) {
+            serializationDigest = Hashing.sha256().hashString(getSerializedJson(), StandardCharsets.UTF_8).toString();
+        }
+        return serializationDigest;
+    }
+
     /**
      * Adds a listener to the sync property and is status of an edge.
      * @param listener the listener
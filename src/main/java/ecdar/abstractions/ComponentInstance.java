@@ -51,6 +51,10 @@ public class ComponentInstance implements SystemElement {
         this.component.set(component);
     }
 
+    public ObjectProperty<Component> componentProperty() {
+        return component;
+    }
+
     public Box getBox() {
         return box;
     }
@@ -6,6 +6,7 @@ import ecdar.controllers.EcdarController;
 import ecdar.utility.serialize.Serializable;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import javafx.beans.Observable;
 import javafx.beans.property.*;
 
 import java.util.ArrayList;
@@ -162,6 +163,16 @@ public class Edge extends DisplayableEdge implements Serializable {
         }
     }
 
+    /**
+     * Gets the properties included in the serialization of this edge.
+     * Changes to the nails of the edge are not included.
+     * @return the properties
+     */
+    public List<Observable> getSerializedProperties() {
+        return List.of(idProperty(), group, sourceLocation, targetLocation, ioStatus, selectProperty(),
+                guardProperty(), updateProperty(), sync, getIsLockedProperty());
+    }
+
     @Override
     public JsonObject serialize() {
         final JsonObject result = new JsonObject();
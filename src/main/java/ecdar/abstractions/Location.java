@@ -13,9 +13,11 @@ import ecdar.utility.serialize.Serializable;
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import javafx.beans.Observable;
 import javafx.beans.property.*;
 
 import java.util.Collections;
+import java.util.List;
 
 public class Location implements Circular, Serializable, Nearable, DropDownMenu.HasColor {
     private static final String NICKNAME = "nickname";
@@ -405,6 +407,14 @@ public class Location implements Circular, Serializable, Nearable, DropDownMenu.
      */
     public void setIsLocked(final boolean bool) {isLocked.setValue(bool); }
 
+    /**
+     * Gets the properties included in the serialization of this location.
+     * @return the properties
+     */
+    public List<Observable> getSerializedProperties() {
+        return List.of(id, nickname, invariant, type, urgency, x, y, color, nicknameX, nicknameY, invariantX, invariantY);
+    }
+
     @Override
     public JsonObject serialize() {
         final JsonObject result = new JsonObject();
@@ -0,0 +1,183 @@
+package ecdar.abstractions;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from the ids of the edges and locations of a list of components to the edges and locations, the components
+ * they belong to, and the positions of those components in the list.
+ * The index is kept up to date as components are added, removed and reordered, and as their edges and locations change.
+ * An edited component is only re-indexed when the index is used again, such that dragging a location or typing a guard
+ * does not re-index the component on every change.
+ * The index may be used from any thread.
+ */
+public class ModelIndex {
+    private final ObservableList<Component> components;
+    private final Map<Component, Integer> componentIndices = new HashMap<>();
+    private final Map<Component, IndexedComponent> indexedComponents = new HashMap<>();
+    private final Map<String, Component> componentsByName = new HashMap<>();
+    private final Map<String, Entry<Edge>> edges = new HashMap<>();
+    private final Set<Component> modifiedComponents = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Start indexing the components of the list. Must be created on the thread owning the list.
+     *
+     * @param components the components to index
+     */
+    public ModelIndex(ObservableList<Component> components) {
+        this.components = components;
+
+        components.addListener((ListChangeListener<Component>) change -> {
+            synchronized (this) {
+                while (change.next()) {
+                    change.getRemoved().forEach(this::untrack);
+                    change.getAddedSubList().forEach(this::track);
+                }
+                updateComponentIndices();
+            }
+        });
+
+        synchronized (this) {
+            components.forEach(this::track);
+            updateComponentIndices();
+        }
+    }
+
+    /**
+     * @param id the id of an edge
+     * @return the entry of the edge, or null if no component has an edge with the id
+     */
+    public synchronized Entry<Edge> getEdge(String id) {
+        reindexModifiedComponents();
+        return edges.get(id);
+    }
+
+    /**
+     * Location ids are only unique within a component, so locations are found by the name of their component
+     *
+     * @param componentName the name of the component of the location
+     * @param id            the id of the location
+     * @return the entry of the location, or null if the component does not exist or has no location with the id
+     */
+    public synchronized Entry<Location> getLocation(String componentName, String id) {
+        reindexModifiedComponents();
+        final Component component = componentsByName.get(componentName);
+        if (component == null) return null;
+        return indexedComponents.get(component).locations.get(id);
+    }
+
+    /**
+     * @param component the component to get the position of
+     * @return the position of the component in the list, or -1 if it is not in the list
+     */
+    public synchronized int getComponentIndex(Component component) {
+        return componentIndices.getOrDefault(component, -1);
+    }
+
+    private void track(Component component) {
+        final IndexedComponent indexedComponent = new IndexedComponent(() -> modifiedComponents.add(component));
+        indexedComponents.put(component, indexedComponent);
+        component.addModificationListener(indexedComponent.modificationListener);
+        modifiedComponents.add(component);
+    }
+
+    private void untrack(Component component) {
+        final IndexedComponent indexedComponent = indexedComponents.remove(component);
+        if (indexedComponent == null) return;
+
+        component.removeModificationListener(indexedComponent.modificationListener);
+        modifiedComponents.remove(component);
+        removeEntries(component, indexedComponent);
+    }
+
+    private void updateComponentIndices() {
+        componentIndices.clear();
+        for (int i = 0; i < components.size(); i++) {
+            componentIndices.putIfAbsent(components.get(i), i);
+        }
+    }
+
+    private void reindexModifiedComponents() {
+        if (modifiedComponents.isEmpty()) return;
+
+        for (Component component : Set.copyOf(modifiedComponents)) {
+            modifiedComponents.remove(component);
+            final IndexedComponent indexedComponent = indexedComponents.get(component);
+            if (indexedComponent == null) continue;
+
+            removeEntries(component, indexedComponent);
+
+            indexedComponent.name = component.getName();
+            componentsByName.put(indexedComponent.name, component);
+            for (Edge edge : component.getEdges()) {
+                indexedComponent.edgeIds.add(edge.getId());
+                edges.put(edge.getId(), new Entry<>(component, edge));
+            }
+            for (Location location : component.getLocations()) {
+                indexedComponent.locations.put(location.getId(), new Entry<>(component, location));
+            }
+        }
+    }
+
+    private void removeEntries(Component component, IndexedComponent indexedComponent) {
+        // Ids are only removed if they still refer to this component, in case they have been reused by another
+        for (String id : indexedComponent.edgeIds) {
+            final Entry<Edge> entry = edges.get(id);
+            if (entry != null && entry.component == component) edges.remove(id);
+        }
+        if (indexedComponent.name != null && componentsByName.get(indexedComponent.name) == component) {
+            componentsByName.remove(indexedComponent.name);
+        }
+
+        indexedComponent.edgeIds.clear();
+        indexedComponent.locations.clear();
+        indexedComponent.name = null;
+    }
+
+    /**
+     * An indexed edge or location, together with the component it belongs to
+     *
+     * @param <T> the type of the element
+     */
+    public final class Entry<T> {
+        private final Component component;
+        private final T element;
+
+        private Entry(Component component, T element) {
+            this.component = component;
+            this.element = element;
+        }
+
+        public Component getComponent() {
+            return component;
+        }
+
+        /**
+         * @return the position of the component in the indexed list, or -1 if it has been removed from the list
+         */
+        public int getComponentIndex() {
+            return ModelIndex.this.getComponentIndex(component);
+        }
+
+        public T getElement() {
+            return element;
+        }
+    }
+
+    private static class IndexedComponent {
+        private final Runnable modificationListener;
+        private final Set<String> edgeIds = new HashSet<>();
+        private final Map<String, Entry<Location>> locations = new HashMap<>();
+        private String name;
+
+        private IndexedComponent(Runnable modificationListener) {
+            this.modificationListener = modificationListener;
+        }
+    }
+}
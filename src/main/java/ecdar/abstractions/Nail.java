@@ -4,12 +4,15 @@ import ecdar.utility.helpers.Circular;
 import ecdar.utility.serialize.Serializable;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import javafx.beans.Observable;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableDoubleValue;
 
+import java.util.List;
+
 public class Nail implements Circular, Serializable {
 
     private static final String X = "x";
@@ -123,6 +126,14 @@ public class Nail implements Circular, Serializable {
         return new SimpleDoubleProperty(1d);
     }
 
+    /**
+     * Gets the properties included in the serialization of this nail.
+     * @return the properties
+     */
+    public List<Observable> getSerializedProperties() {
+        return List.of(x, y, propertyType, propertyX, propertyY);
+    }
+
     @Override
     public JsonObject serialize() {
         final JsonObject result = new JsonObject();
@@ -34,6 +34,7 @@ public class Project {
     private final ObservableList<EcdarSystem> systems;
     private final ObservableList<MutationTestPlan> testPlans;
     private final ObjectProperty<Declarations> globalDeclarations;
+    private final ModelIndex modelIndex;
 
     public Project() {
         queries = FXCollections.observableArrayList();
@@ -42,6 +43,7 @@ public class Project {
         systems = FXCollections.observableArrayList();
         testPlans = FXCollections.observableArrayList();
         globalDeclarations = new SimpleObjectProperty<>(new Declarations("Global Declarations"));
+        modelIndex = new ModelIndex(components);
     }
 
     public ObservableList<Query> getQueries() {
@@ -52,6 +54,14 @@ public class Project {
         return components;
     }
 
+    /**
+     * Gets the index of the edges and locations of the components of this project, by their ids
+     * @return the index
+     */
+    public ModelIndex getModelIndex() {
+        return modelIndex;
+    }
+
     public ObservableList<Component> getTempComponents() {
         return tempComponents;
     }
@@ -122,6 +132,9 @@ public class Project {
             queriesWriter.close();
         }
 
+        // Rewrite the stored query results, compacting them in the process
+        Ecdar.getQueryExecutor().saveResultStore(directory);
+
         Ecdar.showToast("Project saved.");
     }
 
@@ -153,6 +166,9 @@ public class Project {
      * @throws IOException if problems occurs when reading a file
      */
     public void deserialize(final File projectFolder) throws IOException {
+        // Restore the results of the queries from the last session without blocking the loading of the project
+        Ecdar.getQueryExecutor().loadResultStore(projectFolder);
+
         final File[] projectFiles = projectFolder.listFiles();
         File componentFolder = null; File systemFolder = null; File testFolder = null;
         if (projectFiles == null || projectFiles.length == 0) return;
@@ -192,15 +208,14 @@ public class Project {
      * @throws IOException if problems occurs when reading a file
      */
     private void deserializeFileHelper(final File file) throws IOException {
-        final String fileContent = Files.asCharSource(file, Charset.defaultCharset()).read();
-
+        // Other files, such as the log of query results loaded in the background, are not read while loading
         switch (file.getName()) {
             case GLOBAL_DCL_FILENAME + JSON_FILENAME_EXTENSION:
-                final JsonObject globalJsonObj = JsonParser.parseString(fileContent).getAsJsonObject();
+                final JsonObject globalJsonObj = JsonParser.parseString(Files.asCharSource(file, Charset.defaultCharset()).read()).getAsJsonObject();
                 setGlobalDeclarations(new Declarations(globalJsonObj));
                 break;
             case QUERIES_FILENAME + JSON_FILENAME_EXTENSION:
-                JsonParser.parseString(fileContent).getAsJsonArray().forEach(jsonElement -> {
+                JsonParser.parseString(Files.asCharSource(file, Charset.defaultCharset()).read()).getAsJsonArray().forEach(jsonElement -> {
                     final Query newQuery = new Query((JsonObject) jsonElement);
                     getQueries().add(newQuery);
                 });
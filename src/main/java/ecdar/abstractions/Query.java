@@ -21,14 +21,18 @@ public class Query implements Serializable {
     private static final String COMMENT = "comment";
     private static final String IS_PERIODIC = "isPeriodic";
     private static final String BACKEND = "backend";
+    private static final String DEADLINE = "deadline";
 
     private final StringProperty query = new SimpleStringProperty("");
     private final StringProperty comment = new SimpleStringProperty("");
     private final StringProperty errors = new SimpleStringProperty("");
     private final SimpleBooleanProperty isPeriodic = new SimpleBooleanProperty(false);
+    private final SimpleBooleanProperty storedResultStale = new SimpleBooleanProperty(false);
     private final ObjectProperty<QueryState> queryState = new SimpleObjectProperty<>(QueryState.UNKNOWN);
     private final ObjectProperty<QueryType> type = new SimpleObjectProperty<>();
+    private final LongProperty deadline = new SimpleLongProperty(0);
     private BackendInstance backend;
+    private Runnable cancelHandler;
 
 
     private final Consumer<Boolean> successConsumer = (aBoolean) -> {
@@ -118,6 +122,8 @@ public class Query implements Serializable {
     }
 
     public void setQueryState(final QueryState queryState) {
+        // A stored result is only stale until the query gets a new state
+        if (queryState != QueryState.UNKNOWN) storedResultStale.set(false);
         this.queryState.set(queryState);
     }
 
@@ -165,6 +171,24 @@ public class Query implements Serializable {
         this.isPeriodic.set(isPeriodic);
     }
 
+    /**
+     * Whether the result stored for the query in the project folder was not restored,
+     * as it was obtained on components that have changed since
+     *
+     * @return true if the stored result of the query is stale
+     */
+    public boolean isStoredResultStale() {
+        return storedResultStale.get();
+    }
+
+    public SimpleBooleanProperty storedResultStaleProperty() {
+        return storedResultStale;
+    }
+
+    public void setStoredResultStale(final boolean storedResultStale) {
+        this.storedResultStale.set(storedResultStale);
+    }
+
     public BackendInstance getBackend() {
         return backend;
     }
@@ -173,6 +197,23 @@ public class Query implements Serializable {
         this.backend = backend;
     }
 
+    /**
+     * Get the deadline set by the user for the query
+     *
+     * @return the deadline in milliseconds, or 0 if the deadline is derived from earlier executions
+     */
+    public long getDeadline() {
+        return deadline.get();
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline.set(deadline);
+    }
+
+    public LongProperty deadlineProperty() {
+        return deadline;
+    }
+
     public void setType(QueryType type) {
         this.type.set(type);
     }
@@ -211,6 +252,7 @@ public class Query implements Serializable {
         result.addProperty(COMMENT, getComment());
         result.addProperty(IS_PERIODIC, isPeriodic());
         result.addProperty(BACKEND, backend.getName());
+        if (getDeadline() > 0) result.addProperty(DEADLINE, getDeadline());
 
         return result;
     }
@@ -233,6 +275,10 @@ public class Query implements Serializable {
             setIsPeriodic(json.getAsJsonPrimitive(IS_PERIODIC).getAsBoolean());
         }
 
+        if (json.has(DEADLINE)) {
+            setDeadline(json.getAsJsonPrimitive(DEADLINE).getAsLong());
+        }
+
         if (json.has(BACKEND)) {
             setBackend(BackendHelper.getBackendInstanceByName(json.getAsJsonPrimitive(BACKEND).getAsString()));
         } else {
@@ -244,9 +290,19 @@ public class Query implements Serializable {
         if (getQueryState().equals(QueryState.RUNNING)) {
             forcedCancel = true;
             setQueryState(QueryState.UNKNOWN);
+            if (cancelHandler != null) cancelHandler.run();
         }
     }
 
+    /**
+     * Set the handler cancelling the execution of the query on the engine when the query is cancelled
+     *
+     * @param cancelHandler the handler to run when the query is cancelled
+     */
+    public void setCancelHandler(Runnable cancelHandler) {
+        this.cancelHandler = cancelHandler;
+    }
+
     public void addError(String e) {
         errors.set(errors.getValue() + e + "\n");
     }
@@ -1,23 +1,47 @@
 package ecdar.backend;
 
+import EcdarProtoBuf.ComponentProtos;
 import EcdarProtoBuf.EcdarBackendGrpc;
 import ecdar.abstractions.BackendInstance;
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
 
 public class BackendConnection {
     private final Process process;
     private final EcdarBackendGrpc.EcdarBackendStub stub;
     private final ManagedChannel channel;
     private final BackendInstance backendInstance;
+    private final Set<Integer> uploadedComponentsHashes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeCalls;
+    private volatile long lastReleaseTime = System.nanoTime();
 
     BackendConnection(BackendInstance backendInstance, Process process, EcdarBackendGrpc.EcdarBackendStub stub, ManagedChannel channel) {
+        this(backendInstance, process, stub, channel, new AtomicInteger());
+    }
+
+    /**
+     * @param activeCalls the number of calls currently running on the channel, maintained by an interceptor on the channel
+     */
+    BackendConnection(BackendInstance backendInstance, Process process, EcdarBackendGrpc.EcdarBackendStub stub, ManagedChannel channel, AtomicInteger activeCalls) {
         this.process = process;
         this.backendInstance = backendInstance;
         this.stub = stub;
         this.channel = channel;
+        this.activeCalls = activeCalls;
     }
 
     /**
@@ -40,6 +64,177 @@ public class BackendConnection {
         return backendInstance;
     }
 
+    /**
+     * Whether the engine process is running and the channel is not failing
+     *
+     * @return true if the connection can be used for requests
+     */
+    public boolean isAlive() {
+        if (process != null && !process.isAlive()) return false;
+
+        final ConnectivityState state = channel.getState(false);
+        return state != ConnectivityState.TRANSIENT_FAILURE && state != ConnectivityState.SHUTDOWN;
+    }
+
+    boolean hasActiveCalls() {
+        return activeCalls.get() > 0;
+    }
+
+    /**
+     * Get the number of calls currently in flight on the connection
+     *
+     * @return the number of active calls
+     */
+    int getActiveCalls() {
+        return activeCalls.get();
+    }
+
+    void markReleased() {
+        lastReleaseTime = System.nanoTime();
+    }
+
+    /**
+     * Get the time since the connection was last released by a request
+     *
+     * @return the idle time in milliseconds
+     */
+    long getIdleTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReleaseTime);
+    }
+
+    /**
+     * Get the CPU time used by the engine process, if the process is local and the platform reports it
+     *
+     * @return the CPU time in milliseconds, or 0 if unknown
+     */
+    long getProcessCpuTimeMillis() {
+        if (process == null) return 0;
+        return process.info().totalCpuDuration().map(Duration::toMillis).orElse(0L);
+    }
+
+    /**
+     * Get the resident memory of the engine process, if the process is local and the platform reports it.
+     * The memory is read from /proc and is therefore only known on Linux.
+     *
+     * @return the resident memory in bytes, or 0 if unknown
+     */
+    long getProcessMemoryBytes() {
+        if (process == null) return 0;
+
+        final Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        if (!Files.isReadable(status)) return 0;
+
+        try {
+            final List<String> lines = Files.readAllLines(status);
+            for (String line : lines) {
+                // The line has the format "VmRSS:    123456 kB"
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // The process has ended or the format is unknown, treat the memory as unknown
+        }
+        return 0;
+    }
+
+    /**
+     * Sends a request containing the given components over this connection.
+     * Components are uploaded to the engine once per connection, after which requests only reference them by
+     * their components hash, omitting the components themselves. If the engine does not recognize the hash,
+     * e.g. because it has been restarted, the request is resent with the components included. Only a NOT_FOUND
+     * status or a response reporting unknown components triggers the resend, other errors are passed on.
+     *
+     * @param componentsInfo              the components to include in the request
+     * @param call                        sends the request with the given components info to the response observer
+     * @param isUnknownComponentsResponse whether a response signals that the engine does not know the referenced components
+     * @param responseObserver            the observer receiving the responses to the request
+     * @param <T>                         the type of the responses
+     */
+    public <T> void sendWithComponents(ComponentProtos.ComponentsInfo.Builder componentsInfo,
+                                       BiConsumer<ComponentProtos.ComponentsInfo, StreamObserver<T>> call,
+                                       Predicate<T> isUnknownComponentsResponse,
+                                       StreamObserver<T> responseObserver) {
+        final int componentsHash = componentsInfo.getComponentsHash();
+        if (!uploadedComponentsHashes.contains(componentsHash)) {
+            uploadComponents(componentsInfo, call, responseObserver);
+            return;
+        }
+
+        final ComponentProtos.ComponentsInfo reference = ComponentProtos.ComponentsInfo.newBuilder()
+                .setComponentsHash(componentsHash)
+                .build();
+
+        call.accept(reference, new StreamObserver<>() {
+            private boolean componentsUnknown = false;
+
+            @Override
+            public void onNext(T value) {
+                if (isUnknownComponentsResponse.test(value)) {
+                    componentsUnknown = true;
+                } else {
+                    responseObserver.onNext(value);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                final Status status = Status.fromThrowable(t);
+                if (status.getCode() == Status.Code.NOT_FOUND && isUnknownComponentsError(status.getDescription())) {
+                    // The engine could not resolve the reference, resend the components
+                    uploadedComponentsHashes.remove(componentsHash);
+                    uploadComponents(componentsInfo, call, responseObserver);
+                } else {
+                    responseObserver.onError(t);
+                }
+            }
+
+            @Override
+            public void onCompleted() {
+                if (componentsUnknown) {
+                    uploadedComponentsHashes.remove(componentsHash);
+                    uploadComponents(componentsInfo, call, responseObserver);
+                } else {
+                    responseObserver.onCompleted();
+                }
+            }
+        });
+    }
+
+    /**
+     * Whether an error message from the engine signals that it does not know the referenced components hash.
+     * Other errors, such as an invalid query, are not resolved by resending the components.
+     *
+     * @param message the error message returned by the engine
+     * @return whether the message reports unknown components
+     */
+    static boolean isUnknownComponentsError(String message) {
+        return message != null && message.toLowerCase().contains("unknown components");
+    }
+
+    private <T> void uploadComponents(ComponentProtos.ComponentsInfo.Builder componentsInfo,
+                                      BiConsumer<ComponentProtos.ComponentsInfo, StreamObserver<T>> call,
+                                      StreamObserver<T> responseObserver) {
+        call.accept(componentsInfo.build(), new StreamObserver<>() {
+            @Override
+            public void onNext(T value) {
+                responseObserver.onNext(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                responseObserver.onError(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                // The engine has received the components, so later requests can reference them
+                uploadedComponentsHashes.add(componentsInfo.getComponentsHash());
+                responseObserver.onCompleted();
+            }
+        });
+    }
+
     /**
      * Close the gRPC connection and end the process
      *
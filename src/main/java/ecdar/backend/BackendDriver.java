@@ -1,47 +1,265 @@
 package ecdar.backend;
 
 import EcdarProtoBuf.EcdarBackendGrpc;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
 import ecdar.Ecdar;
 import ecdar.abstractions.BackendInstance;
 import io.grpc.*;
 import org.springframework.util.SocketUtils;
 
 import java.io.*;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class BackendDriver {
-    private final BlockingQueue<GrpcRequest> requestQueue = new ArrayBlockingQueue<>(200);
-    private final Map<BackendInstance, BlockingQueue<BackendConnection>> openBackendConnections = new HashMap<>(); // ToDo NIELS: Remove and close when backend is no longer needed
-    private final int responseDeadline = 20000;
-    private final int rerunRequestDelay = 200;
-    private final int numberOfRetriesPerQuery = 5;
+    private final Map<BackendInstance, GrpcRequestConsumer> requestConsumers = new ConcurrentHashMap<>();
+    private final Map<BackendInstance, BlockingQueue<BackendConnection>> openBackendConnections = new ConcurrentHashMap<>();
+    private final Map<BackendInstance, Set<BackendConnection>> leasedConnections = new ConcurrentHashMap<>();
+    private final Map<BackendInstance, BackendStatistics> statistics = new ConcurrentHashMap<>();
+    private final Map<BackendInstance, Object> connectionStartLocks = new ConcurrentHashMap<>();
+    private final ExecutorService warmPoolExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Backend warm pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService connectionCloser = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Backend connection closer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final DeadlinePolicy deadlinePolicy = new DeadlinePolicy();
+    private final int readinessTimeout = 10000;
+    private final int readinessProbeInterval = 50;
+    private final int connectionReleaseWaitInterval = 1000;
+    private final RetryPolicy retryPolicy = new RetryPolicy(5, 200, 5000, 0.5);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Backend scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int supervisionInterval = 5000;
+    private final long idleConnectionTimeout = TimeUnit.MINUTES.toMillis(5);
+    private final long maxProcessCpuTime = TimeUnit.HOURS.toMillis(1);
+    private final long maxProcessMemory = 4L * 1024 * 1024 * 1024;
+    private final int endpointProbeTimeout = 500;
+    private final int endpointRefreshInterval = 30000;
+    private final RemoteEndpointRegistry endpointRegistry = new RemoteEndpointRegistry(this::probeEndpoint);
 
     public BackendDriver() {
-        // ToDo NIELS: Consider multiple consumer threads using 'for(int i = 0; i < x; i++) {}'
-        GrpcRequestConsumer consumer = new GrpcRequestConsumer();
-        Thread consumerThread = new Thread(consumer);
-        consumerThread.start();
+        scheduler.scheduleWithFixedDelay(this::superviseConnections, supervisionInterval, supervisionInterval, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(endpointRegistry::refreshAll, endpointRefreshInterval, endpointRefreshInterval, TimeUnit.MILLISECONDS);
     }
 
-    public int getResponseDeadline() {
-        return responseDeadline;
+    /**
+     * Get the policy deciding how long the backends are given to answer requests
+     *
+     * @return the deadline policy
+     */
+    public DeadlinePolicy getDeadlinePolicy() {
+        return deadlinePolicy;
     }
 
     /**
-     * Add a GrpcRequest to the request queue to be executed when a backend is available
+     * Add a GrpcRequest to the request queue of its backend to be executed when a connection to the backend is available.
+     * Each backend instance has its own queue and consumer thread, so a busy backend does not delay requests to others.
+     * Requests are served in order of their {@link GrpcRequest.Priority} and in FIFO order within the same priority.
      *
      * @param request The GrpcRequest to be executed later
      */
     public void addRequestToExecutionQueue(GrpcRequest request) {
-        requestQueue.add(request);
+        if (request.getBackend() == null) {
+            Ecdar.showToast("No engine is configured to execute the request");
+            return;
+        }
+
+        getRequestConsumer(request.getBackend()).enqueue(request);
+    }
+
+    /**
+     * Cancel and remove all queued requests that are not {@link GrpcRequest.Priority#INTERACTIVE}.
+     * Requests that are already being executed are not affected.
+     */
+    public void cancelQueuedQueries() {
+        requestConsumers.values().forEach(GrpcRequestConsumer::cancelQueuedQueries);
+    }
+
+    /**
+     * Start connections to the given backend instances in the background, until each of them has as many idle
+     * connections as specified by its warm pool size. Connections are only made available once the engine answers.
+     *
+     * @param backends the backend instances to start connections to
+     */
+    public void warmUp(Collection<BackendInstance> backends) {
+        backends.forEach(this::replenishWarmPool);
+    }
+
+    /**
+     * Get the timings collected for requests to the given backend instance
+     *
+     * @param backend the backend instance to get the statistics of
+     * @return the statistics of the backend instance
+     */
+    public BackendStatistics getStatistics(BackendInstance backend) {
+        return statistics.computeIfAbsent(backend, (bi) -> new BackendStatistics());
+    }
+
+    /**
+     * Get the backend instances that requests have been sent to, and that statistics are therefore collected for
+     *
+     * @return the backend instances
+     */
+    public List<BackendInstance> getObservedBackends() {
+        return new ArrayList<>(statistics.keySet());
+    }
+
+    /**
+     * Get the number of requests waiting in the execution queue of the backend
+     *
+     * @param backend the backend instance
+     * @return the number of queued requests
+     */
+    public int getQueueDepth(BackendInstance backend) {
+        final GrpcRequestConsumer consumer = requestConsumers.get(backend);
+        return consumer == null ? 0 : consumer.getQueueDepth();
+    }
+
+    /**
+     * Get the number of connections the backend can have open at the same time
+     *
+     * @param backend the backend instance
+     * @return the capacity of the connection pool of the backend
+     */
+    public int getConnectionCapacity(BackendInstance backend) {
+        return backend.getNumberOfInstances() + 1;
+    }
+
+    /**
+     * Get the number of connections to the backend that are currently open, whether leased or idle
+     *
+     * @param backend the backend instance
+     * @return the number of open connections
+     */
+    public int getOpenConnections(BackendInstance backend) {
+        final BlockingQueue<BackendConnection> queue = openBackendConnections.get(backend);
+        final int idle = queue == null ? 0 : queue.size();
+
+        // Connections of thread safe backends stay in the queue while in use
+        return backend.isThreadSafe() ? idle : idle + getBusyConnections(backend);
+    }
+
+    /**
+     * Get the number of connections to the backend that are currently used by requests
+     *
+     * @param backend the backend instance
+     * @return the number of busy connections
+     */
+    public int getBusyConnections(BackendInstance backend) {
+        if (backend.isThreadSafe()) {
+            final BlockingQueue<BackendConnection> queue = openBackendConnections.get(backend);
+            return queue == null ? 0 : (int) queue.stream().filter(BackendConnection::hasActiveCalls).count();
+        }
+
+        final GrpcRequestConsumer consumer = requestConsumers.get(backend);
+        return consumer == null ? 0 : consumer.getLeasedConnections();
+    }
+
+    /**
+     * Get the number of gRPC calls currently in flight to the backend
+     *
+     * @param backend the backend instance
+     * @return the number of active calls
+     */
+    public int getActiveCalls(BackendInstance backend) {
+        final BlockingQueue<BackendConnection> queue = openBackendConnections.get(backend);
+        return queue == null ? 0 : queue.stream().mapToInt(BackendConnection::getActiveCalls).sum();
+    }
+
+    /**
+     * Export the statistics, queue depth and connection pool utilization of all observed backends,
+     * such that they can be compared offline
+     *
+     * @return the metrics of the backends
+     */
+    public JsonObject exportMetrics() {
+        final JsonObject result = new JsonObject();
+        result.addProperty("exportedAt", Instant.now().toString());
+
+        final JsonArray backends = new JsonArray();
+        for (BackendInstance backend : getObservedBackends()) {
+            final JsonObject entry = getStatistics(backend).toJson();
+            entry.addProperty("backend", backend.getName());
+            entry.addProperty("isThreadSafe", backend.isThreadSafe());
+            entry.addProperty("queueDepth", getQueueDepth(backend));
+            entry.addProperty("connectionCapacity", getConnectionCapacity(backend));
+            entry.addProperty("openConnections", getOpenConnections(backend));
+            entry.addProperty("busyConnections", getBusyConnections(backend));
+            entry.addProperty("activeCalls", getActiveCalls(backend));
+            backends.add(entry);
+        }
+        result.add("backends", backends);
+        return result;
+    }
+
+    /**
+     * Get the request consumer of the given backend instance.
+     * If the backend does not have a consumer yet, one is created and started in its own thread.
+     *
+     * @param backend the backend instance to get the request consumer of
+     * @return the request consumer of the backend
+     */
+    private GrpcRequestConsumer getRequestConsumer(BackendInstance backend) {
+        return requestConsumers.computeIfAbsent(backend, (bi) -> {
+            GrpcRequestConsumer consumer = new GrpcRequestConsumer(bi);
+
+            Thread consumerThread = new Thread(consumer, "Backend request consumer: " + bi.getName());
+            consumerThread.setDaemon(true);
+            consumerThread.start();
+
+            return consumer;
+        });
     }
 
+    /**
+     * Release a connection leased for a request, making it available for the next request to the backend
+     *
+     * @param backendConnection the connection to release
+     */
     public void addBackendConnection(BackendConnection backendConnection) {
+        backendConnection.markReleased();
+        getLeasedConnections(backendConnection.getBackendInstance()).remove(backendConnection);
+
+        // A connection to a crashed engine is replaced instead of being leased again
+        if (!backendConnection.isAlive()) {
+            final BlockingQueue<BackendConnection> queue = openBackendConnections.get(backendConnection.getBackendInstance());
+            if (queue != null) queue.remove(backendConnection);
+            replaceConnection(backendConnection);
+            getRequestConsumer(backendConnection.getBackendInstance()).connectionReleased();
+            return;
+        }
+
         var relatedQueue = this.openBackendConnections.get(backendConnection.getBackendInstance());
-        if (!relatedQueue.contains(backendConnection)) relatedQueue.add(backendConnection);
+
+        // Connections of thread safe backends stay in the queue while in use
+        if (relatedQueue != null && relatedQueue.contains(backendConnection)) return;
+
+        // If the queue has been cleared, the connection has been closed and is not made available again.
+        // If the queue is full, because another connection was started while this one was leased, this one is closed
+        if (relatedQueue != null && !relatedQueue.offer(backendConnection)) closeConnection(backendConnection);
+        getRequestConsumer(backendConnection.getBackendInstance()).connectionReleased();
     }
 
     /**
@@ -57,20 +275,33 @@ public class BackendDriver {
     private BackendConnection getBackendConnection(BackendInstance backend) throws BackendException.NoAvailableBackendConnectionException {
         BackendConnection connection;
         try {
-            if (!openBackendConnections.containsKey(backend))
-                openBackendConnections.put(backend, new ArrayBlockingQueue<>(backend.getNumberOfInstances() + 1));
-
             // If no open connection is free, attempt to start a new one
-            if (openBackendConnections.get(backend).size() < 1) {
-                tryStartNewBackendConnection(backend);
-            }
+            startConnectionIfNeeded(backend, 1);
 
             if (backend.isThreadSafe()){
-                connection = openBackendConnections.get(backend).peek();
+                connection = getLeastLoadedConnection(backend);
+                if (connection == null) {
+                    throw new BackendException.NoAvailableBackendConnectionException("Unable to connect to " + backend.getName());
+                }
+
+                // Spread the load to another engine within the port range, once every connection is saturated
+                if (connection.getActiveCalls() >= backend.getMaxCallsPerConnection()) scaleOut(backend);
             }
             else{
-                // Block until a connection becomes available
-                connection = openBackendConnections.get(backend).take();
+                // Wait for a leased connection to be released. Without any, nothing is released to the queue,
+                // as no connection could be started, so the request is retried instead of blocking the consumer
+                final BlockingQueue<BackendConnection> queue = getConnectionQueue(backend);
+                connection = queue.poll();
+                while (connection == null) {
+                    if (getLeasedConnections(backend).isEmpty()) {
+                        throw new BackendException.NoAvailableBackendConnectionException("Unable to connect to " + backend.getName());
+                    }
+                    connection = queue.poll(connectionReleaseWaitInterval, TimeUnit.MILLISECONDS);
+                }
+                getLeasedConnections(backend).add(connection);
+
+                // Start a spare in the background to replace the leased connection
+                replenishWarmPool(backend);
             }
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
@@ -78,6 +309,75 @@ public class BackendDriver {
         return connection;
     }
 
+    /**
+     * Get the connection to a thread safe backend with the fewest calls in flight.
+     * The connection is returned, even if it has reached the maximum number of calls per connection,
+     * such that requests are not delayed while another connection is started.
+     *
+     * @param backend the thread safe backend instance
+     * @return the least loaded connection, or null if the backend has no open connections
+     */
+    private BackendConnection getLeastLoadedConnection(BackendInstance backend) {
+        return getConnectionQueue(backend).stream()
+                .min(Comparator.comparingInt(BackendConnection::getActiveCalls))
+                .orElse(null);
+    }
+
+    /**
+     * Start another connection to a thread safe backend in the background,
+     * if all of its connections have reached the maximum number of calls per connection
+     *
+     * @param backend the thread safe backend instance to start a connection to
+     */
+    private void scaleOut(BackendInstance backend) {
+        warmPoolExecutor.execute(() -> {
+            synchronized (connectionStartLocks.computeIfAbsent(backend, (bi) -> new Object())) {
+                final BlockingQueue<BackendConnection> queue = getConnectionQueue(backend);
+                final boolean saturated = queue.stream()
+                        .allMatch(connection -> connection.getActiveCalls() >= backend.getMaxCallsPerConnection());
+                if (saturated && queue.remainingCapacity() > 0) tryStartNewBackendConnection(backend);
+            }
+        });
+    }
+
+    private Set<BackendConnection> getLeasedConnections(BackendInstance backend) {
+        return leasedConnections.computeIfAbsent(backend, (bi) -> ConcurrentHashMap.newKeySet());
+    }
+
+    private BlockingQueue<BackendConnection> getConnectionQueue(BackendInstance backend) {
+        return openBackendConnections.computeIfAbsent(backend, (bi) -> new ArrayBlockingQueue<>(bi.getNumberOfInstances() + 1));
+    }
+
+    /**
+     * Start connections to the backend in the background, until it has as many idle connections as its warm pool size
+     *
+     * @param backend the backend instance to start connections to
+     */
+    private void replenishWarmPool(BackendInstance backend) {
+        if (backend.getWarmPoolSize() < 1) return;
+
+        // A thread safe backend serves all requests through a single connection
+        final int idleConnections = backend.isThreadSafe() ? 1 : backend.getWarmPoolSize();
+        warmPoolExecutor.execute(() -> {
+            while (startConnectionIfNeeded(backend, idleConnections)) ;
+        });
+    }
+
+    /**
+     * Start a new connection to the backend, if it has fewer idle connections than the given number.
+     * Connections to the same backend are started one at a time, such that they do not compete for the same port.
+     *
+     * @param backend         the backend instance to start a connection to
+     * @param idleConnections the number of idle connections the backend should have
+     * @return true if a new connection was started
+     */
+    private boolean startConnectionIfNeeded(BackendInstance backend, int idleConnections) {
+        synchronized (connectionStartLocks.computeIfAbsent(backend, (bi) -> new Object())) {
+            if (getConnectionQueue(backend).size() >= idleConnections) return false;
+            return tryStartNewBackendConnection(backend);
+        }
+    }
+
     /**
      * Close all open backend connection and kill all locally running processes
      *
@@ -87,15 +387,78 @@ public class BackendDriver {
         for (BlockingQueue<BackendConnection> bq : openBackendConnections.values()) {
             for (BackendConnection bc : bq) bc.close();
         }
+
+        // Closed connections must not be leased, new ones are started when needed
+        openBackendConnections.clear();
+        endpointRegistry.clear();
+    }
+
+    /**
+     * Checks the idle connections of all backends. Connections to engines that have crashed, or that have exceeded
+     * their CPU time or memory budget, are replaced. Connections that have been idle for longer than the idle timeout
+     * are closed, as long as the backend keeps the number of idle connections of its warm pool.
+     */
+    private void superviseConnections() {
+        try {
+            openBackendConnections.forEach((backend, queue) -> {
+                for (BackendConnection connection : queue) {
+                    // Connections of thread safe backends stay in the queue while in use
+                    if (connection.hasActiveCalls()) continue;
+
+                    // A connection is only replaced or closed if it is taken from the queue before it is leased
+                    if (!connection.isAlive()) {
+                        if (queue.remove(connection)) replaceConnection(connection);
+                    } else if (connection.getProcessCpuTimeMillis() > maxProcessCpuTime
+                            || connection.getProcessMemoryBytes() > maxProcessMemory) {
+                        if (queue.remove(connection)) replaceConnection(connection);
+                    } else if (connection.getIdleTimeMillis() > idleConnectionTimeout
+                            && queue.size() > backend.getWarmPoolSize() && queue.remove(connection)) {
+                        closeConnection(connection);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // Keep supervising, even if a single check fails
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Closes the connection and starts a new one in its place, if the backend has a warm pool.
+     * Otherwise, a new connection is started by the next request.
+     * The connection must no longer be in the queue, such that it cannot be leased while it is closed.
+     *
+     * @param connection the connection to replace
+     */
+    private void replaceConnection(BackendConnection connection) {
+        closeConnection(connection);
+        replenishWarmPool(connection.getBackendInstance());
+    }
+
+    /**
+     * Closes the connection in the background, as waiting for its calls to finish may take a while,
+     * which must not delay the supervision or the retries on the scheduler, nor the thread releasing the connection
+     *
+     * @param connection the connection to close
+     */
+    private void closeConnection(BackendConnection connection) {
+        connectionCloser.execute(() -> {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
     }
 
     /**
      * Attempts to start a new connection to the specified backend. On success, the backend is added to the associated
-     * queue, otherwise, nothing happens.
+     * queue, otherwise, nothing happens. The connection is only added once the engine accepts connections.
      *
      * @param backend the target backend for the connection
+     * @return true if the connection was started and added to the queue
      */
-    private void tryStartNewBackendConnection(BackendInstance backend) {
+    private boolean tryStartNewBackendConnection(BackendInstance backend) {
         Process p = null;
         String hostAddress = (backend.isLocal() ? "127.0.0.1" : backend.getBackendLocation());
         long portNumber = 0;
@@ -105,7 +468,7 @@ public class BackendDriver {
                 portNumber = SocketUtils.findAvailableTcpPort(backend.getPortStart(), backend.getPortEnd());
             } catch (IllegalStateException e) {
                 // No port was available in range, we assume that connections are running on all ports
-                return;
+                return false;
             }
 
             do {
@@ -118,40 +481,116 @@ public class BackendDriver {
                 } catch (IOException ioException) {
                     Ecdar.showToast("Unable to start local backend instance");
                     ioException.printStackTrace();
-                    return;
+                    return false;
                 }
                 // If the process is not alive, it failed while starting up, try again
             } while (!p.isAlive());
         } else {
-            // Filter open connections to this backend and map their used ports to an int stream
-            var activeEnginePorts = openBackendConnections.get(backend).stream()
-                    .mapToInt((bi) -> Integer.parseInt(bi.getStub().getChannel().authority().split(":", 2)[1]));
+            // Collect the ports of the open connections to this backend, both idle and leased, such that an engine
+            // serving a request is not connected to again
+            final Set<Integer> activeEnginePorts = Stream.concat(getConnectionQueue(backend).stream(), getLeasedConnections(backend).stream())
+                    .map((bi) -> Integer.parseInt(bi.getStub().getChannel().authority().split(":", 2)[1]))
+                    .collect(Collectors.toSet());
 
-            int currentPort = backend.getPortStart();
-            do {
-                // Find port not already connected to
-                int tempPortNumber = currentPort;
-                if (activeEnginePorts.noneMatch((i) -> i == tempPortNumber)) {
-                    portNumber = tempPortNumber;
-                } else {
-                    currentPort++;
-                }
-            } while (portNumber == 0 && currentPort <= backend.getPortEnd());
+            // Engines may have been started since the ports were last probed, so probe again before giving up
+            Optional<Integer> freePort = findFreePort(endpointRegistry.getLiveEndpoints(backend), activeEnginePorts);
+            if (freePort.isEmpty()) freePort = findFreePort(endpointRegistry.refresh(backend).join(), activeEnginePorts);
 
-            if (currentPort > backend.getPortEnd()) {
+            if (freePort.isEmpty()) {
                 Ecdar.showToast("Unable to connect to remote engine: " + backend.getName() + " within port range " + backend.getPortStart() + " - " + backend.getPortEnd());
-                return;
+                return false;
             }
+            portNumber = freePort.get();
         }
 
-        ManagedChannel channel = ManagedChannelBuilder.forTarget(hostAddress + ":" + portNumber)
-                .usePlaintext()
-                .keepAliveTime(1000, TimeUnit.MILLISECONDS)
+        AtomicInteger activeCalls = new AtomicInteger();
+        ManagedChannel channel = newChannelBuilder(hostAddress + ":" + portNumber)
+                .intercept(new ExecutionTimeInterceptor(getStatistics(backend), activeCalls),
+                        new CompressionInterceptor(getStatistics(backend), backend.isCompressMessages()))
                 .build();
 
+        if (!awaitChannelReady(channel, readinessTimeout, true)) {
+            Ecdar.showToast("The engine " + backend.getName() + " did not accept connections within " + readinessTimeout / 1000 + " seconds");
+            channel.shutdownNow();
+            if (p != null) p.destroy();
+            if (!backend.isLocal()) endpointRegistry.markDead(backend, (int) portNumber);
+            return false;
+        }
+
         EcdarBackendGrpc.EcdarBackendStub stub = EcdarBackendGrpc.newStub(channel);
-        BackendConnection newConnection = new BackendConnection(backend, p, stub, channel);
-        addBackendConnection(newConnection);
+        BackendConnection newConnection = new BackendConnection(backend, p, stub, channel, activeCalls);
+        if (!getConnectionQueue(backend).offer(newConnection)) {
+            channel.shutdownNow();
+            if (p != null) p.destroy();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Create the builder of the channel to an engine. Overridden in tests to connect to engines running in-process.
+     *
+     * @param target the address and port of the engine
+     * @return the channel builder
+     */
+    ManagedChannelBuilder<?> newChannelBuilder(String target) {
+        return ManagedChannelBuilder.forTarget(target)
+                .usePlaintext()
+                .keepAliveTime(1000, TimeUnit.MILLISECONDS);
+    }
+
+    private static Optional<Integer> findFreePort(Set<Integer> livePorts, Set<Integer> activePorts) {
+        return livePorts.stream().filter((port) -> !activePorts.contains(port)).sorted().findFirst();
+    }
+
+    /**
+     * Check whether an engine accepts connections on the port, giving up after the probe timeout
+     *
+     * @param host the address of the remote engine
+     * @param port the port to probe
+     * @return true if the engine accepted a connection
+     */
+    private boolean probeEndpoint(String host, int port) {
+        final ManagedChannel channel = newChannelBuilder(host + ":" + port).build();
+        try {
+            return awaitChannelReady(channel, endpointProbeTimeout, false);
+        } finally {
+            channel.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait until the channel is connected to the engine
+     *
+     * @param channel             the channel to the engine
+     * @param timeout             the time to wait in milliseconds
+     * @param retryWithoutBackoff whether to retry right away, instead of giving up, if the engine refuses the connection,
+     *                            as it does while it is starting
+     * @return true if the channel became ready before the timeout
+     */
+    private boolean awaitChannelReady(ManagedChannel channel, long timeout, boolean retryWithoutBackoff) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try {
+            ConnectivityState state;
+            while ((state = channel.getState(true)) != ConnectivityState.READY) {
+                if (state == ConnectivityState.SHUTDOWN || System.nanoTime() > deadline) return false;
+
+                if (state == ConnectivityState.TRANSIENT_FAILURE) {
+                    if (!retryWithoutBackoff) return false;
+
+                    // The engine process is not listening yet, try again right away instead of after the default backoff
+                    channel.resetConnectBackoff();
+                }
+
+                final CountDownLatch stateChanged = new CountDownLatch(1);
+                channel.notifyWhenStateChanged(state, stateChanged::countDown);
+                stateChanged.await(readinessProbeInterval, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
     }
 
 //    public SimulationState getInitialSimulationState() {
@@ -180,29 +619,129 @@ public class BackendDriver {
     //     }
     // }
 
+    /**
+     * Takes requests from the queue of a single backend instance and executes them on connections to that backend.
+     * Blocking while waiting for a connection therefore only delays requests to the same backend.
+     * For backends that are not thread safe, one connection is reserved for {@link GrpcRequest.Priority#INTERACTIVE}
+     * requests, such that e.g. simulation steps are not stuck behind a batch of queries.
+     */
     private class GrpcRequestConsumer implements Runnable {
+        private final BackendInstance backend;
+        private final BlockingQueue<GrpcRequest> queue = new PriorityBlockingQueue<>(11, GrpcRequest.EXECUTION_ORDER);
+        private int leasedConnections = 0;
+
+        GrpcRequestConsumer(BackendInstance backend) {
+            this.backend = backend;
+        }
+
+        synchronized void enqueue(GrpcRequest request) {
+            request.markEnqueued();
+            queue.add(request);
+            notifyAll();
+        }
+
+        synchronized void cancelQueuedQueries() {
+            queue.removeIf(request -> {
+                if (request.getPriority() == GrpcRequest.Priority.INTERACTIVE) return false;
+                request.cancel();
+                return true;
+            });
+        }
+
+        synchronized int getQueueDepth() {
+            return queue.size();
+        }
+
+        synchronized int getLeasedConnections() {
+            return leasedConnections;
+        }
+
+        synchronized void connectionReleased() {
+            leasedConnections = Math.max(0, leasedConnections - 1);
+            notifyAll();
+        }
+
+        /**
+         * Whether a connection may be leased for the given request without taking the connection reserved
+         * for interactive requests.
+         *
+         * @param request the request to lease a connection for
+         * @return true if a connection may be leased for the request
+         */
+        private boolean mayLeaseConnectionFor(GrpcRequest request) {
+            if (backend.isThreadSafe()) return true;
+
+            int connectionCapacity = backend.getNumberOfInstances() + 1;
+            int connectionLimit = request.getPriority() == GrpcRequest.Priority.INTERACTIVE
+                    ? connectionCapacity
+                    : Math.max(1, connectionCapacity - 1);
+
+            return leasedConnections < connectionLimit;
+        }
+
+        /**
+         * Wait for the request with the highest priority that a connection may be leased for
+         *
+         * @return the request to execute next
+         * @throws InterruptedException if interrupted while waiting
+         */
+        private synchronized GrpcRequest takeNextRequest() throws InterruptedException {
+            GrpcRequest request;
+            while ((request = queue.peek()) == null || !mayLeaseConnectionFor(request)) {
+                wait();
+            }
+
+            if (!backend.isThreadSafe()) leasedConnections++;
+            return queue.poll();
+        }
+
+        /**
+         * Enqueue the request again after the delay of the retry policy, or give it up if its retry budget is spent
+         *
+         * @param request the request that could not be dispatched
+         */
+        private void retry(GrpcRequest request) {
+            if (request.isCancelled()) return;
+
+            if (retryPolicy.shouldRetry(request)) {
+                getStatistics(backend).recordRetry();
+                scheduler.schedule(() -> enqueue(request), retryPolicy.getDelay(request), TimeUnit.MILLISECONDS);
+            } else {
+                getStatistics(backend).recordAbandonedRequest();
+                Ecdar.showToast("Unable to find a connection to the requested engine");
+            }
+        }
+
         @Override
         public void run() {
             while (true) {
                 try {
-                    GrpcRequest request = requestQueue.take();
+                    GrpcRequest request = takeNextRequest();
+
+                    // Requests cancelled while queued are dropped without leasing a connection
+                    if (request.isCancelled()) {
+                        connectionReleased();
+                        continue;
+                    }
 
+                    BackendConnection connection = null;
                     try {
                         request.tries++;
-                        request.execute(getBackendConnection(request.getBackend()));
+                        final long queueWait = request.getTimeInQueue();
+                        final long acquisitionStart = System.nanoTime();
+                        connection = getBackendConnection(backend);
+                        getStatistics(backend).recordLatency(BackendStatistics.Stage.CONNECTION_ACQUISITION, null, System.nanoTime() - acquisitionStart);
+                        getStatistics(backend).recordQueueWait(queueWait);
+                        request.execute(connection);
                     } catch (BackendException.NoAvailableBackendConnectionException e) {
                         e.printStackTrace();
-                        if (request.tries < numberOfRetriesPerQuery) {
-                            new Timer().schedule(new TimerTask() {
-                                @Override
-                                public void run() {
-                                    requestQueue.add(request);
-                                }
-                            }, rerunRequestDelay);
-                        } else {
-                            Ecdar.showToast("Unable to find a connection to the requested engine");
-                        }
-                        return;
+                        connectionReleased();
+                        retry(request);
+                    } catch (RuntimeException e) {
+                        // A failing request must not stop the consumer from serving the other requests
+                        e.printStackTrace();
+                        if (connection == null) connectionReleased();
+                        else addBackendConnection(connection);
                     }
                 } catch (InterruptedException e) {
                     e.printStackTrace();
@@ -210,4 +749,199 @@ public class BackendDriver {
             }
         }
     }
+
+    /**
+     * Compresses the requests of a channel with gzip, if enabled for the backend. The engine decompresses them and
+     * may compress its responses in turn, as the encodings accepted by the client are sent along with each call.
+     * If the engine rejects a call for its compression, the call is sent again uncompressed, and the rest of the calls
+     * on the channel are no longer compressed.
+     * The size of the requests on the wire and uncompressed is recorded, such that the effect can be observed.
+     */
+    private static class CompressionInterceptor implements ClientInterceptor {
+        private final BackendStatistics statistics;
+        private final AtomicBoolean compress;
+
+        CompressionInterceptor(BackendStatistics statistics, boolean compress) {
+            this.statistics = statistics;
+            this.compress = new AtomicBoolean(compress);
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            CallOptions options = callOptions.withStreamTracerFactory(new ClientStreamTracer.Factory() {
+                @Override
+                public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                    return new ClientStreamTracer() {
+                        @Override
+                        public void outboundWireSize(long bytes) {
+                            statistics.recordBytesSent(bytes, 0);
+                        }
+
+                        @Override
+                        public void outboundUncompressedSize(long bytes) {
+                            statistics.recordBytesSent(0, bytes);
+                        }
+                    };
+                }
+            });
+            if (!compress.get()) return next.newCall(method, options);
+            return new UncompressedFallbackCall<>(method, options, next);
+        }
+
+        /**
+         * Whether the engine closed a call because it cannot decompress it, which engines built without support
+         * for the compression report as unimplemented
+         *
+         * @param status the status the call was closed with
+         * @return true if the call was rejected for its compression
+         */
+        private static boolean isCompressionRejected(Status status) {
+            final String description = status.getDescription();
+            return status.getCode() == Status.Code.UNIMPLEMENTED
+                    || description != null && description.toLowerCase().contains("compress");
+        }
+
+        /**
+         * A compressed call that keeps the requests sent on it, such that it can be sent again uncompressed,
+         * if the engine rejects it before answering
+         */
+        private class UncompressedFallbackCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+            private final MethodDescriptor<ReqT, RespT> method;
+            private final CallOptions options;
+            private final Channel next;
+            private final List<ReqT> messages = new ArrayList<>();
+            private final Metadata headers = new Metadata();
+            private ClientCall<ReqT, RespT> delegate;
+            private Listener<RespT> listener;
+            private int requested = 0;
+            private boolean halfClosed = false;
+            private boolean cancelled = false;
+            private boolean answered = false;
+
+            UncompressedFallbackCall(MethodDescriptor<ReqT, RespT> method, CallOptions options, Channel next) {
+                this.method = method;
+                this.options = options;
+                this.next = next;
+            }
+
+            @Override
+            public synchronized void start(Listener<RespT> responseListener, Metadata headers) {
+                this.listener = responseListener;
+                this.headers.merge(headers);
+                delegate = next.newCall(method, options.withCompression("gzip"));
+                delegate.start(new Listener<>() {
+                    @Override
+                    public void onHeaders(Metadata headers) {
+                        markAnswered();
+                        responseListener.onHeaders(headers);
+                    }
+
+                    @Override
+                    public void onMessage(RespT message) {
+                        markAnswered();
+                        responseListener.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        if (!sendUncompressed(status)) responseListener.onClose(status, trailers);
+                    }
+
+                    @Override
+                    public void onReady() {
+                        responseListener.onReady();
+                    }
+                }, headers);
+            }
+
+            private synchronized void markAnswered() {
+                answered = true;
+            }
+
+            /**
+             * Send the call again uncompressed, if it was rejected for its compression before it was answered
+             *
+             * @param status the status the compressed call was closed with
+             * @return true if the call was sent again
+             */
+            private synchronized boolean sendUncompressed(Status status) {
+                if (answered || cancelled || !isCompressionRejected(status)) return false;
+
+                compress.set(false);
+                delegate = next.newCall(method, options);
+                delegate.start(listener, headers);
+                if (requested > 0) delegate.request(requested);
+                messages.forEach(delegate::sendMessage);
+                if (halfClosed) delegate.halfClose();
+                return true;
+            }
+
+            @Override
+            public synchronized void request(int numMessages) {
+                requested += numMessages;
+                delegate.request(numMessages);
+            }
+
+            @Override
+            public synchronized void cancel(String message, Throwable cause) {
+                cancelled = true;
+                delegate.cancel(message, cause);
+            }
+
+            @Override
+            public synchronized void halfClose() {
+                halfClosed = true;
+                delegate.halfClose();
+            }
+
+            @Override
+            public synchronized void sendMessage(ReqT message) {
+                messages.add(message);
+                delegate.sendMessage(message);
+            }
+
+            @Override
+            public synchronized boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public synchronized Attributes getAttributes() {
+                return delegate.getAttributes();
+            }
+        }
+    }
+
+    /**
+     * Records the time from a gRPC call is started on a channel until the call is closed by the backend,
+     * and keeps count of the calls currently running on the channel.
+     */
+    private static class ExecutionTimeInterceptor implements ClientInterceptor {
+        private final BackendStatistics statistics;
+        private final AtomicInteger activeCalls;
+
+        ExecutionTimeInterceptor(BackendStatistics statistics, AtomicInteger activeCalls) {
+            this.statistics = statistics;
+            this.activeCalls = activeCalls;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+                @Override
+                public void start(Listener<RespT> responseListener, Metadata headers) {
+                    final long startTime = System.nanoTime();
+                    activeCalls.incrementAndGet();
+                    super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                        @Override
+                        public void onClose(Status status, Metadata trailers) {
+                            activeCalls.decrementAndGet();
+                            statistics.recordExecutionTime(System.nanoTime() - startTime);
+                            super.onClose(status, trailers);
+                        }
+                    }, headers);
+                }
+            };
+        }
+    }
 }
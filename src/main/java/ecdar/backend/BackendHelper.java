@@ -1,6 +1,9 @@
 package ecdar.backend;
 
 import EcdarProtoBuf.ComponentProtos;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import ecdar.Ecdar;
 import ecdar.abstractions.*;
 import ecdar.simulation.SimulationState;
@@ -13,12 +16,15 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public final class BackendHelper {
     final static String TEMP_DIRECTORY = "temporary";
@@ -59,10 +65,11 @@ public final class BackendHelper {
     }
 
     /**
-     * Stop all running queries.
+     * Stop all running queries and drop the queries waiting to be executed.
      */
     public static void stopQueries() {
         Ecdar.getProject().getQueries().forEach(Query::cancel);
+        Ecdar.getBackendDriver().cancelQueuedQueries();
     }
 
     public static String getLocationReachableQuery(final Location endLocation, final Component component, final String query) {
@@ -240,14 +247,67 @@ public final class BackendHelper {
         BackendHelper.backendInstancesUpdatedListeners.add(runnable);
     }
 
-    public static ComponentProtos.ComponentsInfo.Builder getComponentsInfoBuilder(String query) {
-        ComponentProtos.ComponentsInfo.Builder componentsInfoBuilder = ComponentProtos.ComponentsInfo.newBuilder();
+    /**
+     * Returns the components of the project used by the given query.
+     * Systems referenced by the query are expanded to the components they are instantiated from.
+     *
+     * @param query The query to find the components of
+     * @return The components used by the query, in the order of the project
+     */
+    public static List<Component> getComponentsInQuery(String query) {
+        final Set<String> referencedNames = new HashSet<>(QueryParser.getReferencedNames(query));
+        for (EcdarSystem system : Ecdar.getProject().getSystemsProperty()) {
+            if (referencedNames.contains(system.getName())) {
+                for (ComponentInstance instance : system.getComponentInstances()) {
+                    if (instance.getComponent() != null) referencedNames.add(instance.getComponent().getName());
+                }
+            }
+        }
+
+        List<Component> components = new ArrayList<>();
         for (Component c : Ecdar.getProject().getComponents()) {
-            if (query.contains(c.getName())) {
-                componentsInfoBuilder.addComponents(ComponentProtos.Component.newBuilder().setJson(c.serialize().toString()).build());
+            if (referencedNames.contains(c.getName())) {
+                components.add(c);
             }
         }
-        componentsInfoBuilder.setComponentsHash(componentsInfoBuilder.getComponentsList().hashCode());
+        return components;
+    }
+
+    public static ComponentProtos.ComponentsInfo.Builder getComponentsInfoBuilder(String query) {
+        return getComponentsInfoBuilder(getComponentsInQuery(query));
+    }
+
+    /**
+     * Builds the components info for a request, reusing the cached serialization of each component
+     *
+     * @param components The components to include in the request
+     * @return The components info builder
+     */
+    public static ComponentProtos.ComponentsInfo.Builder getComponentsInfoBuilder(List<Component> components) {
+        ComponentProtos.ComponentsInfo.Builder componentsInfoBuilder = ComponentProtos.ComponentsInfo.newBuilder();
+        for (Component c : components) {
+            componentsInfoBuilder.addComponents(ComponentProtos.Component.newBuilder().setJson(c.getSerializedJson()).build());
+        }
+        componentsInfoBuilder.setComponentsHash(getComponentsDigest(components).asInt());
         return componentsInfoBuilder;
     }
+
+    /**
+     * Computes a hash of the content of the given components, which is stable across sessions.
+     * Unlike the components hash sent to the backend, this hash is suited for identifying verification results.
+     *
+     * @param components The components to hash
+     * @return The SHA-256 hash of the components as a hex string
+     */
+    public static String getComponentsContentHash(List<Component> components) {
+        return getComponentsDigest(components).toString();
+    }
+
+    private static HashCode getComponentsDigest(List<Component> components) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        for (Component component : components) {
+            hasher.putString(component.getSerializationDigest(), StandardCharsets.UTF_8);
+        }
+        return hasher.hash();
+    }
 }
@@ -0,0 +1,182 @@
+package ecdar.backend;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import ecdar.abstractions.QueryType;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timings collected by the {@link BackendDriver} for a single backend instance.
+ * Queue wait is the time from a request is added to the execution queue until it is taken from the queue,
+ * execution time is the time from a gRPC call is started until the backend closes it.
+ * Retries count the requests that could not get a connection and were enqueued again,
+ * abandoned requests count those that were given up after spending their retry budget.
+ * The bytes sent count the size of the requests on the wire, which is smaller than their uncompressed size,
+ * if the backend compresses messages.
+ * In addition, the latency of each {@link Stage} of a request is recorded in a histogram per query type.
+ */
+public class BackendStatistics {
+    private long dispatchedRequests = 0;
+    private long totalQueueWait = 0;
+    private long maxQueueWait = 0;
+    private long completedCalls = 0;
+    private long totalExecutionTime = 0;
+    private long maxExecutionTime = 0;
+    private long retries = 0;
+    private long abandonedRequests = 0;
+    private long bytesSent = 0;
+    private long uncompressedBytesSent = 0;
+    private final Map<Stage, Map<String, LatencyHistogram>> histograms = new EnumMap<>(Stage.class);
+
+    /**
+     * The stages a request goes through, from it is queued until its result is applied to the user interface
+     */
+    public enum Stage {
+        QUEUE_WAIT("Queue wait"),
+        CONNECTION_ACQUISITION("Connection acquisition"),
+        SERIALIZATION("Serialization"),
+        ENGINE("Engine"),
+        RESULT_APPLICATION("Result application");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    synchronized void recordQueueWait(long nanos) {
+        dispatchedRequests++;
+        totalQueueWait += nanos;
+        maxQueueWait = Math.max(maxQueueWait, nanos);
+        recordLatency(Stage.QUEUE_WAIT, null, nanos);
+    }
+
+    synchronized void recordExecutionTime(long nanos) {
+        completedCalls++;
+        totalExecutionTime += nanos;
+        maxExecutionTime = Math.max(maxExecutionTime, nanos);
+        recordLatency(Stage.ENGINE, null, nanos);
+    }
+
+    /**
+     * Record the latency of a stage of a request
+     *
+     * @param stage the stage of the request
+     * @param type  the type of the query, or null for stages recorded for all kinds of requests
+     * @param nanos the latency in nanoseconds
+     */
+    synchronized void recordLatency(Stage stage, QueryType type, long nanos) {
+        histograms.computeIfAbsent(stage, (s) -> new LinkedHashMap<>())
+                .computeIfAbsent(type == null ? "all" : type.getQueryName(), (t) -> new LatencyHistogram())
+                .record(nanos);
+    }
+
+    /**
+     * Get the histograms of the stages, keyed by the query type they were recorded for,
+     * or "all" for those recorded for all kinds of requests
+     *
+     * @return a copy of the histograms in the order of the stages
+     */
+    public synchronized Map<Stage, Map<String, LatencyHistogram>> getHistograms() {
+        final Map<Stage, Map<String, LatencyHistogram>> copy = new EnumMap<>(Stage.class);
+        histograms.forEach((stage, byType) -> copy.put(stage, new LinkedHashMap<>(byType)));
+        return copy;
+    }
+
+    synchronized void recordRetry() {
+        retries++;
+    }
+
+    synchronized void recordAbandonedRequest() {
+        abandonedRequests++;
+    }
+
+    synchronized void recordBytesSent(long wireBytes, long uncompressedBytes) {
+        bytesSent += wireBytes;
+        uncompressedBytesSent += uncompressedBytes;
+    }
+
+    public synchronized long getDispatchedRequests() {
+        return dispatchedRequests;
+    }
+
+    public synchronized long getAverageQueueWaitMillis() {
+        return dispatchedRequests == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalQueueWait / dispatchedRequests);
+    }
+
+    public synchronized long getMaxQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxQueueWait);
+    }
+
+    public synchronized long getCompletedCalls() {
+        return completedCalls;
+    }
+
+    public synchronized long getAverageExecutionTimeMillis() {
+        return completedCalls == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalExecutionTime / completedCalls);
+    }
+
+    public synchronized long getMaxExecutionTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxExecutionTime);
+    }
+
+    public synchronized long getRetries() {
+        return retries;
+    }
+
+    public synchronized long getAbandonedRequests() {
+        return abandonedRequests;
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    public synchronized long getUncompressedBytesSent() {
+        return uncompressedBytesSent;
+    }
+
+    /**
+     * @return the counters and the histograms of the stages
+     */
+    public synchronized JsonObject toJson() {
+        final JsonObject result = new JsonObject();
+        result.addProperty("dispatchedRequests", getDispatchedRequests());
+        result.addProperty("completedCalls", getCompletedCalls());
+        result.addProperty("retries", getRetries());
+        result.addProperty("abandonedRequests", getAbandonedRequests());
+        result.addProperty("bytesSent", getBytesSent());
+        result.addProperty("uncompressedBytesSent", getUncompressedBytesSent());
+
+        final JsonArray latencies = new JsonArray();
+        histograms.forEach((stage, byType) -> byType.forEach((type, histogram) -> {
+            final JsonObject entry = histogram.toJson();
+            entry.addProperty("stage", stage.name());
+            entry.addProperty("type", type);
+            latencies.add(entry);
+        }));
+        result.add("latencies", latencies);
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "dispatched: " + getDispatchedRequests()
+                + ", queue wait avg/max: " + getAverageQueueWaitMillis() + "/" + getMaxQueueWaitMillis() + " ms"
+                + ", completed: " + getCompletedCalls()
+                + ", execution avg/max: " + getAverageExecutionTimeMillis() + "/" + getMaxExecutionTimeMillis() + " ms"
+                + ", retries: " + getRetries()
+                + ", abandoned: " + getAbandonedRequests()
+                + ", bytes sent/uncompressed: " + getBytesSent() + "/" + getUncompressedBytesSent();
+    }
+}
@@ -0,0 +1,290 @@
+package ecdar.backend;
+
+import ecdar.Debug;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Project;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.abstractions.QueryType;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.ListChangeListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-verifies the periodic queries and the components included in the periodic check in the background,
+ * whenever the model is edited. Edits are debounced, such that a burst of edits, like dragging a location or typing
+ * a guard, is coalesced into a single run once the model has been left alone for the debounce delay, or at the latest
+ * after the maximum delay. A run only executes the checks whose query or components have changed since they were
+ * last answered, where periodic queries are found through the {@link QueryDependencyGraph}, and each run is reported
+ * as a background thread while its queries are running.
+ */
+public class BackgroundQueryScheduler {
+    private final QueryHandler queryHandler;
+    private final QueryDependencyGraph dependencyGraph;
+    private final ObservableValue<Boolean> enabled;
+    private final Executor modelExecutor;
+    private final long debounceDelay;
+    private final long maxDelay;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Background query scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only accessed through the model executor
+    private final Map<Component, Query> componentChecks = new HashMap<>();
+    private final Map<Query, String> executedInputs = new WeakHashMap<>();
+    private Project project;
+
+    private final Runnable componentListener = this::modelEdited;
+    private final InvalidationListener propertyListener = observable -> modelEdited();
+    private ScheduledFuture<?> pendingRun = null;
+    private long firstEditTime = -1;
+
+    /**
+     * @param queryHandler    the query handler executing the checks
+     * @param dependencyGraph the dependencies of the queries of the project, only affected periodic queries are checked
+     * @param enabled         whether background queries should be run
+     * @param modelExecutor   executes tasks on the thread owning the model, the JavaFX application thread
+     */
+    public BackgroundQueryScheduler(QueryHandler queryHandler, QueryDependencyGraph dependencyGraph, ObservableValue<Boolean> enabled, Executor modelExecutor) {
+        this(queryHandler, dependencyGraph, enabled, modelExecutor, 1000, 10000);
+    }
+
+    /**
+     * @param debounceDelay the time in milliseconds the model must be left unchanged before the checks are run
+     * @param maxDelay      the maximum time in milliseconds from the first edit until the checks are run
+     */
+    BackgroundQueryScheduler(QueryHandler queryHandler, QueryDependencyGraph dependencyGraph, ObservableValue<Boolean> enabled, Executor modelExecutor, long debounceDelay, long maxDelay) {
+        this.queryHandler = queryHandler;
+        this.dependencyGraph = dependencyGraph;
+        this.enabled = enabled;
+        this.modelExecutor = modelExecutor;
+        this.debounceDelay = debounceDelay;
+        this.maxDelay = maxDelay;
+
+        enabled.addListener((observable, oldValue, newValue) -> {
+            if (newValue) {
+                modelEdited();
+            } else {
+                cancelPendingRun();
+            }
+        });
+    }
+
+    /**
+     * Start watching the components, queries and systems of the project, and schedule a first run of the checks.
+     * Must be called on the thread owning the model.
+     *
+     * @param project the project to check
+     */
+    public void watch(Project project) {
+        this.project = project;
+
+        project.getComponents().addListener((ListChangeListener<Component>) change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(this::untrackComponent);
+                change.getAddedSubList().forEach(component -> component.addModificationListener(componentListener));
+            }
+            modelEdited();
+        });
+        project.getComponents().forEach(component -> component.addModificationListener(componentListener));
+
+        project.getQueries().addListener((ListChangeListener<Query>) change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(query -> getQueryProperties(query).forEach(property -> property.removeListener(propertyListener)));
+                change.getAddedSubList().forEach(query -> getQueryProperties(query).forEach(property -> property.addListener(propertyListener)));
+            }
+            modelEdited();
+        });
+        project.getQueries().forEach(query -> getQueryProperties(query).forEach(property -> property.addListener(propertyListener)));
+
+        project.getSystemsProperty().addListener(propertyListener);
+
+        modelEdited();
+    }
+
+    /**
+     * Schedule a run of the checks after the debounce delay, replacing any run scheduled by an earlier edit
+     */
+    private synchronized void modelEdited() {
+        if (!enabled.getValue()) return;
+
+        final long now = System.currentTimeMillis();
+        if (firstEditTime < 0) firstEditTime = now;
+        final long delay = Math.min(debounceDelay, Math.max(0, firstEditTime + maxDelay - now));
+
+        if (pendingRun != null) pendingRun.cancel(false);
+        pendingRun = timer.schedule(() -> modelExecutor.execute(this::runChecks), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancelPendingRun() {
+        if (pendingRun != null) pendingRun.cancel(false);
+        pendingRun = null;
+        firstEditTime = -1;
+    }
+
+    /**
+     * Execute the checks whose inputs have changed since they were last answered
+     */
+    private void runChecks() {
+        cancelPendingRun();
+        if (!enabled.getValue() || project == null) return;
+
+        final Map<Query, String> changedChecks = new LinkedHashMap<>();
+        for (Query check : getChecks()) {
+            // Checks that are already running, like periodic queries executed by the user, are left alone
+            if (check.getQueryState() == QueryState.RUNNING) continue;
+
+            final String inputs = getInputs(check);
+            if (inputs == null) continue;
+            if (inputs.equals(executedInputs.get(check))) {
+                // Edited back to the content it was checked on
+                dependencyGraph.markVerified(check);
+                continue;
+            }
+
+            changedChecks.put(check, inputs);
+        }
+        if (changedChecks.isEmpty()) return;
+
+        // Listening for the answers before the checks are started, in case they are answered right away
+        final Run run = new Run(changedChecks);
+        final List<Query> checks = new ArrayList<>(changedChecks.keySet());
+        queryHandler.executeQueries(checks, GrpcRequest.Priority.BACKGROUND);
+        run.checksStarted();
+    }
+
+    /**
+     * Get the affected periodic queries of the project and a consistency check of each component included in the periodic check
+     *
+     * @return the queries to check
+     */
+    List<Query> getChecks() {
+        final List<Query> checks = new ArrayList<>();
+        for (Query query : project.getQueries()) {
+            if (query.isPeriodic() && dependencyGraph.isAffected(query)) checks.add(query);
+        }
+
+        for (Component component : project.getComponents()) {
+            if (!component.isIncludeInPeriodicCheck()) continue;
+
+            final Query check = componentChecks.computeIfAbsent(component, (c) -> {
+                final Query query = new Query("", "", QueryState.UNKNOWN);
+                query.setType(QueryType.LOCAL_CONSISTENCY);
+                return query;
+            });
+            check.setQuery(component.getName());
+            check.setBackend(BackendHelper.getDefaultBackendInstance());
+            checks.add(check);
+        }
+        return checks;
+    }
+
+    /**
+     * Get the inputs of a check, which are unchanged as long as neither the query nor its components change
+     *
+     * @param check the query to get the inputs of
+     * @return the key of the query and the content of its components, or null if the query cannot be executed
+     */
+    private static String getInputs(Query check) {
+        if (check.getType() == null || check.getBackend() == null || check.getQuery().isEmpty()) return null;
+
+        return QueryResultCache.getKey(check.getType(), check.getQuery(), check.getBackend(),
+                BackendHelper.getComponentsContentHash(BackendHelper.getComponentsInQuery(check.getQuery())));
+    }
+
+    private void untrackComponent(Component component) {
+        component.removeModificationListener(componentListener);
+        final Query check = componentChecks.remove(component);
+        if (check != null) check.cancel();
+    }
+
+    private static List<ObservableValue<?>> getQueryProperties(Query query) {
+        return List.of(query.queryProperty(), query.isPeriodicProperty(), query.getTypeProperty());
+    }
+
+    /**
+     * A run of the checks, which records the inputs of each check once it is answered and is shown in the background
+     * threads of the status bar until all of its checks have been answered or cancelled.
+     * A check that fails to execute, or is cancelled, keeps its previous inputs, such that the next run checks it again.
+     */
+    private class Run {
+        private final Map<Query, ChangeListener<QueryState>> listeners = new HashMap<>();
+        private final AtomicInteger remainingChecks;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final Thread entry;
+
+        Run(Map<Query, String> checks) {
+            remainingChecks = new AtomicInteger(checks.size());
+
+            // The status bar lists threads, so the run is represented by a thread waiting for it to finish
+            entry = new Thread(() -> {
+                try {
+                    finished.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Background check of " + checks.size() + (checks.size() == 1 ? " query" : " queries"));
+            entry.setDaemon(true);
+
+            checks.forEach((check, inputs) -> {
+                final ChangeListener<QueryState> listener = (observable, oldValue, newValue) -> {
+                    if (newValue != QueryState.RUNNING) checkFinished(check, inputs, newValue);
+                };
+                listeners.put(check, listener);
+                check.queryStateProperty().addListener(listener);
+            });
+
+            Debug.addThread(entry);
+            entry.start();
+        }
+
+        /**
+         * Finish the checks that were not started, e.g. because their query is not valid
+         */
+        void checksStarted() {
+            final List<Query> checks;
+            synchronized (this) {
+                checks = List.copyOf(listeners.keySet());
+            }
+            for (Query check : checks) {
+                if (check.getQueryState() != QueryState.RUNNING) checkFinished(check, null, check.getQueryState());
+            }
+        }
+
+        private void checkFinished(Query check, String inputs, QueryState state) {
+            final ChangeListener<QueryState> listener;
+            synchronized (this) {
+                listener = listeners.remove(check);
+            }
+            if (listener == null) return;
+            check.queryStateProperty().removeListener(listener);
+
+            // Only a verdict from the engine means the check is up to date with its inputs
+            if (inputs != null && (state == QueryState.SUCCESSFUL || state == QueryState.ERROR)) {
+                modelExecutor.execute(() -> executedInputs.put(check, inputs));
+            }
+
+            if (remainingChecks.decrementAndGet() == 0) {
+                Debug.removeThread(entry);
+                finished.countDown();
+            }
+        }
+    }
+}
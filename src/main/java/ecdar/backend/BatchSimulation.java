@@ -0,0 +1,463 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ComponentProtos;
+import EcdarProtoBuf.ObjectProtos;
+import EcdarProtoBuf.QueryProtos;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import ecdar.Ecdar;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Edge;
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Takes a number of simulation steps of a composition without user interaction, choosing each step by a {@link Policy}.
+ * The decisions are made as the responses arrive, without going through the simulator or the JavaFX application thread,
+ * and steps that have already been taken from the same state are answered from a memo, such that the throughput is
+ * bounded by the engine. Each step is streamed to a trace file as a line of JSON.
+ * A deadlock, a state without enabled edges, is recorded and the walk is continued from the initial state.
+ */
+public class BatchSimulation {
+    private final BackendDriver backendDriver;
+    private final String composition;
+    private final int steps;
+    private final Policy policy;
+    private final Path traceFile;
+    private final Context.CancellableContext context = Context.ROOT.withCancellation();
+    private final CompletableFuture<Report> result = new CompletableFuture<>();
+    private final SimulationStepMemo stepMemo = new SimulationStepMemo(100000, 64 * 1024 * 1024);
+
+    // Only accessed by the step in progress, as the steps are taken one at a time
+    private final Map<String, Integer> edgeVisits = new HashMap<>();
+    private final Set<String> visitedLocations = new HashSet<>();
+    private final Set<String> deadlocks = new LinkedHashSet<>();
+    private ComponentProtos.ComponentsInfo.Builder comInfo;
+    private String componentsHash;
+    private final Map<String, ObjectProtos.SpecificComponent> edgeComponents = new HashMap<>();
+    private int totalLocations;
+    private int totalEdges;
+    private ObjectProtos.DecisionPoint initialDecisionPoint;
+    private BufferedWriter trace;
+    private int stepsTaken = 0;
+    private int engineSteps = 0;
+    private long startTime;
+
+    /**
+     * @param backendDriver the driver executing the steps on the default backend
+     * @param composition   the composition to simulate
+     * @param steps         the number of steps to take
+     * @param policy        chooses the edge to take in each state
+     * @param traceFile     the file to write the trace to
+     */
+    public BatchSimulation(BackendDriver backendDriver, String composition, int steps, Policy policy, Path traceFile) {
+        this.backendDriver = backendDriver;
+        this.composition = composition;
+        this.steps = steps;
+        this.policy = policy;
+        this.traceFile = traceFile;
+    }
+
+    /**
+     * Start the simulation. The components of the project are captured as they are when called,
+     * so later edits do not affect the simulation. Must be called on the thread owning the model.
+     *
+     * @return the report, completed when all steps have been taken, or exceptionally if a step fails
+     */
+    public CompletableFuture<Report> start() {
+        final List<Component> components = Ecdar.getProject().getComponents();
+        comInfo = BackendHelper.getComponentsInfoBuilder(components);
+        componentsHash = BackendHelper.getComponentsContentHash(components);
+        indexEdges(components);
+        for (Component component : BackendHelper.getComponentsInQuery(composition)) {
+            totalLocations += component.getLocations().size();
+            totalEdges += component.getEdges().size();
+        }
+
+        try {
+            trace = Files.newBufferedWriter(traceFile);
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        startTime = System.currentTimeMillis();
+        enqueue(backendConnection -> {
+            final DeadlinePolicy.ResponseDeadline deadline = backendDriver.getDeadlinePolicy().getSimulationDeadline(backendConnection.getBackendInstance());
+            final var simStartRequest = QueryProtos.SimulationStartRequest.newBuilder();
+            final var simInfo = QueryProtos.SimulationInfo.newBuilder().setComponentComposition(composition);
+
+            backendConnection.sendWithComponents(comInfo,
+                    (componentsInfo, observer) -> backendConnection.getStub()
+                            .withDeadlineAfter(deadline.getMillis(), TimeUnit.MILLISECONDS)
+                            .startSimulation(simStartRequest.setSimulationInfo(simInfo.setComponentsInfo(componentsInfo)).build(), observer),
+                    response -> false,
+                    new StepObserver(backendConnection, response -> {
+                        initialDecisionPoint = response.getNewDecisionPoints(0);
+                        visit(initialDecisionPoint.getSource());
+                        advance(initialDecisionPoint);
+                    }));
+        });
+
+        return result;
+    }
+
+    /**
+     * Cancel the steps of the simulation, which completes the report exceptionally
+     */
+    public void cancel() {
+        context.cancel(null);
+    }
+
+    /**
+     * Take steps from the decision point, until a step has to be requested from the engine or all steps are taken
+     *
+     * @param decisionPoint the state reached by the last step and its enabled edges
+     */
+    private void advance(ObjectProtos.DecisionPoint decisionPoint) {
+        while (!result.isDone()) {
+            if (decisionPoint.getEdgesCount() == 0) {
+                recordDeadlock(decisionPoint.getSource());
+                if (initialDecisionPoint.getEdgesCount() == 0) break;
+                decisionPoint = initialDecisionPoint;
+            }
+            if (stepsTaken >= steps) break;
+
+            final ObjectProtos.Decision decision = getDecision(decisionPoint, policy.choose(decisionPoint, Collections.unmodifiableMap(edgeVisits)));
+            final SimulationStepMemo.Key stepKey = new SimulationStepMemo.Key(decision, composition, componentsHash);
+            final QueryProtos.SimulationStepResponse memoizedStep = stepMemo.get(stepKey);
+            if (memoizedStep == null) {
+                requestStep(decision, stepKey);
+                return;
+            }
+
+            decisionPoint = takeStep(decision, memoizedStep);
+        }
+
+        finish();
+    }
+
+    private void requestStep(ObjectProtos.Decision decision, SimulationStepMemo.Key stepKey) {
+        engineSteps++;
+        enqueue(backendConnection -> {
+            final DeadlinePolicy.ResponseDeadline deadline = backendDriver.getDeadlinePolicy().getSimulationDeadline(backendConnection.getBackendInstance());
+            final var simStepRequest = QueryProtos.SimulationStepRequest.newBuilder().setChosenDecision(decision);
+            final var simInfo = QueryProtos.SimulationInfo.newBuilder().setComponentComposition(composition);
+
+            backendConnection.sendWithComponents(comInfo,
+                    (componentsInfo, observer) -> backendConnection.getStub()
+                            .withDeadlineAfter(deadline.getMillis(), TimeUnit.MILLISECONDS)
+                            .takeSimulationStep(simStepRequest.setSimulationInfo(simInfo.setComponentsInfo(componentsInfo)).build(), observer),
+                    response -> false,
+                    new StepObserver(backendConnection, response -> {
+                        stepMemo.put(stepKey, response);
+                        advance(takeStep(decision, response));
+                    }));
+        });
+    }
+
+    private void enqueue(Consumer<BackendConnection> request) {
+        final Context previous = context.attach();
+        try {
+            backendDriver.addRequestToExecutionQueue(new GrpcRequest(request, BackendHelper.getDefaultBackendInstance(), GrpcRequest.Priority.USER_QUERY));
+        } finally {
+            context.detach(previous);
+        }
+    }
+
+    /**
+     * Index the component of each edge, by its name and position in the captured components, such that renaming
+     * or reordering the components of the project does not change the decisions of a running simulation
+     *
+     * @param components the components captured when the simulation is started
+     */
+    private void indexEdges(List<Component> components) {
+        for (int i = 0; i < components.size(); i++) {
+            final Component component = components.get(i);
+            final ObjectProtos.SpecificComponent specComp = ObjectProtos.SpecificComponent.newBuilder()
+                    .setComponentName(component.getName())
+                    .setComponentIndex(i)
+                    .build();
+            for (Edge edge : component.getEdges()) {
+                edgeComponents.putIfAbsent(edge.getId(), specComp);
+            }
+        }
+    }
+
+    /**
+     * Build the decision of taking an edge, where the component of the edge is found in the captured components
+     */
+    private ObjectProtos.Decision getDecision(ObjectProtos.DecisionPoint decisionPoint, ObjectProtos.Edge edge) {
+        final ObjectProtos.SpecificComponent specComp = edgeComponents.getOrDefault(edge.getId(), ObjectProtos.SpecificComponent.getDefaultInstance());
+
+        return ObjectProtos.Decision.newBuilder()
+                .setSource(decisionPoint.getSource())
+                .setEdge(ObjectProtos.Edge.newBuilder().setId(edge.getId()).setSpecificComponent(specComp))
+                .build();
+    }
+
+    private ObjectProtos.DecisionPoint takeStep(ObjectProtos.Decision decision, QueryProtos.SimulationStepResponse response) {
+        stepsTaken++;
+        edgeVisits.merge(decision.getEdge().getId(), 1, Integer::sum);
+
+        final ObjectProtos.DecisionPoint decisionPoint = response.getNewDecisionPoints(0);
+        visit(decisionPoint.getSource());
+
+        final JsonObject line = new JsonObject();
+        line.addProperty("step", stepsTaken);
+        line.addProperty("edge", decision.getEdge().getId());
+        line.addProperty("component", decision.getEdge().getSpecificComponent().getComponentName());
+        line.add("state", describe(decisionPoint.getSource()));
+        writeTrace(line);
+
+        return decisionPoint;
+    }
+
+    private void recordDeadlock(ObjectProtos.State state) {
+        final JsonArray locations = describe(state);
+        deadlocks.add(locations.toString());
+
+        final JsonObject line = new JsonObject();
+        line.addProperty("step", stepsTaken);
+        line.add("deadlock", locations);
+        writeTrace(line);
+    }
+
+    private void visit(ObjectProtos.State state) {
+        for (ObjectProtos.Location location : state.getLocationTuple().getLocationsList()) {
+            visitedLocations.add(location.getSpecificComponent().getComponentName() + "." + location.getId());
+        }
+    }
+
+    private static JsonArray describe(ObjectProtos.State state) {
+        final JsonArray locations = new JsonArray();
+        for (ObjectProtos.Location location : state.getLocationTuple().getLocationsList()) {
+            locations.add(location.getSpecificComponent().getComponentName() + "." + location.getId());
+        }
+        return locations;
+    }
+
+    private void writeTrace(JsonObject line) {
+        try {
+            trace.write(line.toString());
+            trace.newLine();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void finish() {
+        if (!closeTrace()) return;
+
+        final Report report = new Report(stepsTaken, engineSteps, System.currentTimeMillis() - startTime,
+                visitedLocations.size(), totalLocations, edgeVisits.size(), totalEdges, deadlocks);
+        result.complete(report);
+    }
+
+    private void fail(Throwable t) {
+        closeTrace();
+        result.completeExceptionally(t);
+    }
+
+    /**
+     * @return false if the trace could not be written, in which case the report has been completed exceptionally
+     */
+    private boolean closeTrace() {
+        try {
+            trace.close();
+            return true;
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return false;
+        }
+    }
+
+    /**
+     * Observes the response of a step, and continues the simulation once the connection has been released,
+     * such that the next step can be executed on it
+     */
+    private class StepObserver implements StreamObserver<QueryProtos.SimulationStepResponse> {
+        private final BackendConnection backendConnection;
+        private final Consumer<QueryProtos.SimulationStepResponse> onResponse;
+        private final long startTime = System.currentTimeMillis();
+        private QueryProtos.SimulationStepResponse response;
+
+        StepObserver(BackendConnection backendConnection, Consumer<QueryProtos.SimulationStepResponse> onResponse) {
+            this.backendConnection = backendConnection;
+            this.onResponse = onResponse;
+        }
+
+        @Override
+        public void onNext(QueryProtos.SimulationStepResponse value) {
+            response = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            backendDriver.addBackendConnection(backendConnection);
+            fail(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            backendDriver.getDeadlinePolicy().recordSimulationLatency(backendConnection.getBackendInstance(), System.currentTimeMillis() - startTime);
+            backendDriver.addBackendConnection(backendConnection);
+
+            if (response == null || response.getNewDecisionPointsCount() == 0) {
+                fail(new IllegalStateException("The engine did not answer the simulation step with a state"));
+                return;
+            }
+            onResponse.accept(response);
+        }
+    }
+
+    /**
+     * Chooses the edge to take from a state
+     */
+    public interface Policy {
+        /**
+         * @param decisionPoint the state and its enabled edges, of which there is at least one
+         * @param edgeVisits    the number of times each edge has been taken, by the id of the edge
+         * @return the enabled edge to take
+         */
+        ObjectProtos.Edge choose(ObjectProtos.DecisionPoint decisionPoint, Map<String, Integer> edgeVisits);
+
+        /**
+         * @param seed the seed of the random choices
+         * @return a policy choosing uniformly at random among the enabled edges
+         */
+        static Policy uniformRandom(long seed) {
+            final Random random = new Random(seed);
+            return (decisionPoint, edgeVisits) -> decisionPoint.getEdges(random.nextInt(decisionPoint.getEdgesCount()));
+        }
+
+        /**
+         * @param seed the seed of the random choices between edges that have been taken equally often
+         * @return a policy choosing the enabled edge that has been taken the fewest times
+         */
+        static Policy leastVisited(long seed) {
+            final Random random = new Random(seed);
+            return (decisionPoint, edgeVisits) -> {
+                final int fewestVisits = decisionPoint.getEdgesList().stream()
+                        .mapToInt(edge -> edgeVisits.getOrDefault(edge.getId(), 0))
+                        .min().orElseThrow();
+                final List<ObjectProtos.Edge> leastVisited = decisionPoint.getEdgesList().stream()
+                        .filter(edge -> edgeVisits.getOrDefault(edge.getId(), 0) == fewestVisits)
+                        .collect(Collectors.toList());
+                return leastVisited.get(random.nextInt(leastVisited.size()));
+            };
+        }
+
+        /**
+         * @param edgeIds the ids of the edges to take first, in order, for as long as they are enabled
+         * @param seed    the seed of the uniformly random choices once the scenario has been played
+         * @return a policy playing the scenario and then continuing as a random walk
+         */
+        static Policy scenario(List<String> edgeIds, long seed) {
+            final Policy afterwards = uniformRandom(seed);
+            final int[] next = {0};
+            return (decisionPoint, edgeVisits) -> {
+                if (next[0] < edgeIds.size()) {
+                    final String edgeId = edgeIds.get(next[0]);
+                    for (ObjectProtos.Edge edge : decisionPoint.getEdgesList()) {
+                        if (edge.getId().equals(edgeId)) {
+                            next[0]++;
+                            return edge;
+                        }
+                    }
+                    next[0] = edgeIds.size();
+                }
+                return afterwards.choose(decisionPoint, edgeVisits);
+            };
+        }
+    }
+
+    /**
+     * The outcome of a batch simulation
+     */
+    public static class Report {
+        private final int steps;
+        private final int engineSteps;
+        private final long elapsedMillis;
+        private final int visitedLocations;
+        private final int totalLocations;
+        private final int coveredEdges;
+        private final int totalEdges;
+        private final List<String> deadlocks;
+
+        Report(int steps, int engineSteps, long elapsedMillis, int visitedLocations, int totalLocations,
+               int coveredEdges, int totalEdges, Set<String> deadlocks) {
+            this.steps = steps;
+            this.engineSteps = engineSteps;
+            this.elapsedMillis = elapsedMillis;
+            this.visitedLocations = visitedLocations;
+            this.totalLocations = totalLocations;
+            this.coveredEdges = coveredEdges;
+            this.totalEdges = totalEdges;
+            this.deadlocks = List.copyOf(deadlocks);
+        }
+
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * @return the number of steps requested from the engine, the other steps were answered from the memo
+         */
+        public int getEngineSteps() {
+            return engineSteps;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getStepsPerSecond() {
+            return steps * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        /**
+         * @return the fraction of the locations of the simulated components that have been visited
+         */
+        public double getLocationCoverage() {
+            return totalLocations == 0 ? 0 : Math.min(1, (double) visitedLocations / totalLocations);
+        }
+
+        /**
+         * @return the fraction of the edges of the simulated components that have been taken
+         */
+        public double getEdgeCoverage() {
+            return totalEdges == 0 ? 0 : Math.min(1, (double) coveredEdges / totalEdges);
+        }
+
+        /**
+         * @return the distinct deadlocked states found, each described by its locations
+         */
+        public List<String> getDeadlocks() {
+            return deadlocks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d steps (%d from the engine) in %d ms, %.1f steps/s, location coverage %.0f%%, edge coverage %.0f%%, %d deadlocks",
+                    steps, engineSteps, elapsedMillis, getStepsPerSecond(), getLocationCoverage() * 100, getEdgeCoverage() * 100, deadlocks.size());
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package ecdar.backend;
+
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.QueryType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives the deadline of a request from the latencies observed for earlier requests of the same kind,
+ * i.e. the same query type or simulation steps, on the same backend.
+ * Until enough latencies have been observed, a default deadline for the kind of request is used.
+ * When a request exceeds its deadline, the deadline is recorded as a latency, such that the deadline of
+ * the next request of that kind grows, until requests finish or the maximum deadline is reached.
+ * Queries are never given less time than the default query deadline, nor less than a multiple of the time the same
+ * query took the last time it was executed, and a query that times out is retried once with a longer deadline.
+ * The latencies of retries are not recorded, as they ran under the longer deadline.
+ */
+public class DeadlinePolicy {
+    static final int SAMPLE_WINDOW = 100;
+    static final int MIN_SAMPLES = 10;
+    static final int PERCENTILE = 99;
+    static final int PERCENTILE_MULTIPLIER = 3;
+    static final long DEFAULT_QUERY_DEADLINE = 20000;
+    static final long DEFAULT_SIMULATION_DEADLINE = 5000;
+    static final long MIN_DEADLINE = 1000;
+    static final long MAX_DEADLINE = 30 * 60 * 1000;
+    static final int RETRY_MULTIPLIER = 4;
+
+    private final Map<Key, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Get the deadline of a query
+     *
+     * @param backend          the backend executing the query
+     * @param type             the type of the query
+     * @param overrideDeadline the deadline set by the user for the query in milliseconds, or 0 if none is set
+     * @return the deadline of the query
+     */
+    public ResponseDeadline getQueryDeadline(BackendInstance backend, QueryType type, long overrideDeadline) {
+        return getQueryDeadline(backend, type, overrideDeadline, -1);
+    }
+
+    /**
+     * Get the deadline of a query that may have been executed before
+     *
+     * @param backend          the backend executing the query
+     * @param type             the type of the query
+     * @param overrideDeadline the deadline set by the user for the query in milliseconds, or 0 if none is set
+     * @param executionTime    the time the query took the last time it was executed in milliseconds, or -1 if unknown
+     * @return the deadline of the query
+     */
+    public ResponseDeadline getQueryDeadline(BackendInstance backend, QueryType type, long overrideDeadline, long executionTime) {
+        if (overrideDeadline > 0) return new ResponseDeadline(overrideDeadline, describe(type), -1, false, false);
+
+        final ResponseDeadline deadline = getDeadline(new Key(backend, type), DEFAULT_QUERY_DEADLINE);
+        final long floor = Math.min(MAX_DEADLINE, Math.max(DEFAULT_QUERY_DEADLINE, executionTime * PERCENTILE_MULTIPLIER));
+        if (deadline.millis >= floor) return deadline;
+        return new ResponseDeadline(floor, deadline.kind, deadline.percentileMillis, true, false);
+    }
+
+    /**
+     * Get the deadline of the single retry of a request that exceeded its deadline
+     *
+     * @param deadline the deadline the request exceeded
+     * @return the longer deadline of the retry
+     */
+    public ResponseDeadline getRetryDeadline(ResponseDeadline deadline) {
+        return new ResponseDeadline(Math.min(MAX_DEADLINE, deadline.millis * RETRY_MULTIPLIER), deadline.kind, deadline.percentileMillis, deadline.floored, true);
+    }
+
+    /**
+     * Get the deadline of a simulation step
+     *
+     * @param backend the backend executing the simulation
+     * @return the deadline of the simulation step
+     */
+    public ResponseDeadline getSimulationDeadline(BackendInstance backend) {
+        return getDeadline(new Key(backend, null), DEFAULT_SIMULATION_DEADLINE);
+    }
+
+    /**
+     * Record the time a query took to be answered by the backend
+     *
+     * @param backend the backend that executed the query
+     * @param type    the type of the query
+     * @param millis  the latency in milliseconds
+     */
+    public void recordQueryLatency(BackendInstance backend, QueryType type, long millis) {
+        getWindow(new Key(backend, type)).add(millis);
+    }
+
+    /**
+     * Record the time a simulation step took to be answered by the backend
+     *
+     * @param backend the backend that executed the simulation step
+     * @param millis  the latency in milliseconds
+     */
+    public void recordSimulationLatency(BackendInstance backend, long millis) {
+        getWindow(new Key(backend, null)).add(millis);
+    }
+
+    private ResponseDeadline getDeadline(Key key, long defaultDeadline) {
+        final String kind = describe(key.type);
+        final long percentile = getWindow(key).getPercentile(PERCENTILE);
+        if (percentile < 0) return new ResponseDeadline(defaultDeadline, kind, -1, false, false);
+
+        final long deadline = Math.min(MAX_DEADLINE, Math.max(MIN_DEADLINE, percentile * PERCENTILE_MULTIPLIER));
+        return new ResponseDeadline(deadline, kind, percentile, false, false);
+    }
+
+    private LatencyWindow getWindow(Key key) {
+        return latencies.computeIfAbsent(key, (k) -> new LatencyWindow());
+    }
+
+    private static String describe(QueryType type) {
+        return type == null ? "simulation steps" : type.getQueryName() + " queries";
+    }
+
+    /**
+     * The deadline of a request together with the latency percentile it was derived from
+     */
+    public static class ResponseDeadline {
+        private final long millis;
+        private final String kind;
+        private final long percentileMillis;
+        private final boolean floored;
+        private final boolean retry;
+
+        ResponseDeadline(long millis, String kind, long percentileMillis, boolean floored, boolean retry) {
+            this.millis = millis;
+            this.kind = kind;
+            this.percentileMillis = percentileMillis;
+            this.floored = floored;
+            this.retry = retry;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @return the latency percentile observed for the kind of request in milliseconds, which the deadline is
+         * derived from unless it has been raised to a floor or for a retry, or -1 if too few latencies have been
+         * observed or the deadline is set by the user
+         */
+        public long getPercentileMillis() {
+            return percentileMillis;
+        }
+
+        /**
+         * @return whether the deadline is that of the retry of a request that already exceeded a deadline
+         */
+        public boolean isRetry() {
+            return retry;
+        }
+
+        /**
+         * Describes why the request timed out, for the message shown to the user
+         *
+         * @return the description
+         */
+        public String describeTimeout() {
+            if (percentileMillis < 0) {
+                if (retry) {
+                    return "The backend did not answer the request within " + formatMillis(millis)
+                            + ", even after it was retried with a longer deadline";
+                }
+                return "The backend did not answer the request within the deadline of " + formatMillis(millis);
+            }
+
+            final String percentile = PERCENTILE_MULTIPLIER + " times the " + PERCENTILE + "th percentile of "
+                    + formatMillis(percentileMillis) + " observed for " + kind + " on this backend";
+            if (retry) {
+                return "The backend did not answer the request within " + formatMillis(millis)
+                        + ", even after it was retried with a deadline longer than " + percentile;
+            }
+            if (floored) {
+                return "The backend did not answer the request within " + formatMillis(millis) + ", longer than " + percentile;
+            }
+            return "The backend did not answer the request within " + formatMillis(millis) + ", " + percentile;
+        }
+
+        private static String formatMillis(long millis) {
+            return millis < 1000 ? millis + " ms" : String.format("%.1f s", millis / 1000.0);
+        }
+    }
+
+    /**
+     * The latest latencies observed for a kind of request
+     */
+    private static class LatencyWindow {
+        private final long[] samples = new long[SAMPLE_WINDOW];
+        private int count = 0;
+        private int next = 0;
+
+        synchronized void add(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @param percentile the percentile to get, between 1 and 100
+         * @return the latency at the percentile, using the nearest rank, or -1 if too few latencies have been observed
+         */
+        synchronized long getPercentile(int percentile) {
+            if (count < MIN_SAMPLES) return -1;
+
+            final long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            final int rank = (int) Math.ceil(percentile / 100.0 * count);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+
+    private static class Key {
+        private final BackendInstance backend;
+        private final QueryType type;
+
+        Key(BackendInstance backend, QueryType type) {
+            this.backend = backend;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(backend, key.backend) && type == key.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(backend, type);
+        }
+    }
+}
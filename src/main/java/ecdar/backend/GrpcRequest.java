@@ -1,24 +1,110 @@
 package ecdar.backend;
 
 import ecdar.abstractions.BackendInstance;
+import io.grpc.Context;
 
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public class GrpcRequest {
+    /**
+     * Orders requests by priority and, within the same priority, by the order in which they were enqueued
+     */
+    static final Comparator<GrpcRequest> EXECUTION_ORDER = Comparator
+            .comparing(GrpcRequest::getPriority)
+            .thenComparingLong(r -> r.sequenceNumber);
+    private static final AtomicLong sequenceCounter = new AtomicLong();
+
     private final Consumer<BackendConnection> request;
     private final BackendInstance backend;
+    private final Priority priority;
+    private final Context.CancellableContext context;
+    private long enqueuedTime;
+    private long sequenceNumber;
     public int tries = 0;
 
     public GrpcRequest(Consumer<BackendConnection> request, BackendInstance backend) {
+        this(request, backend, Priority.USER_QUERY);
+    }
+
+    /**
+     * The request is bound to a child of the current gRPC {@link Context}, so cancelling that context cancels the request.
+     *
+     * @param request  the calls to execute on a connection to the backend
+     * @param backend  the backend to execute the request on
+     * @param priority the priority of the request relative to other requests to the same backend
+     */
+    public GrpcRequest(Consumer<BackendConnection> request, BackendInstance backend, Priority priority) {
+        this.context = Context.current().withCancellation();
         this.request = request;
         this.backend = backend;
+        this.priority = priority;
     }
 
+    /**
+     * Executes the request on the given connection. The gRPC calls started by the request are bound to the
+     * context of the request, such that they are cancelled on the engine when the request is cancelled.
+     *
+     * @param backendConnection the connection to execute the request on
+     */
     public void execute(BackendConnection backendConnection) {
-        this.request.accept(backendConnection);
+        context.run(() -> this.request.accept(backendConnection));
+    }
+
+    /**
+     * Cancels the request. If the request is still queued, it is dropped without being executed.
+     * If it is being executed, its calls are cancelled, and their observers receive a CANCELLED error,
+     * which releases the connection.
+     */
+    public void cancel() {
+        context.cancel(null);
+    }
+
+    public boolean isCancelled() {
+        return context.isCancelled();
     }
 
     public BackendInstance getBackend() {
         return backend;
     }
-}
\ No newline at end of file
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Marks the time at which the request was (re)added to an execution queue
+     */
+    void markEnqueued() {
+        enqueuedTime = System.nanoTime();
+        sequenceNumber = sequenceCounter.getAndIncrement();
+    }
+
+    /**
+     * Get the time the request has spent in the execution queue since it was last added to it
+     *
+     * @return the time in nanoseconds
+     */
+    long getTimeInQueue() {
+        return System.nanoTime() - enqueuedTime;
+    }
+
+    /**
+     * The classes of requests, in the order they are served by the {@link BackendDriver}
+     */
+    public enum Priority {
+        /**
+         * Requests the user is actively waiting on, like simulation steps
+         */
+        INTERACTIVE,
+        /**
+         * Queries executed by the user, individually or through "run all queries"
+         */
+        USER_QUERY,
+        /**
+         * Periodic and other background checks
+         */
+        BACKGROUND
+    }
+}
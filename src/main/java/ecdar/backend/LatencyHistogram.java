@@ -0,0 +1,98 @@
+package ecdar.backend;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Histogram of latencies with logarithmic buckets, in the style of HdrHistogram.
+ * Latencies are recorded in microseconds. Each power of two is split into {@link #SUB_BUCKETS} / 2 linear buckets,
+ * such that percentiles are reported within about 3 % of the recorded latencies, regardless of their magnitude,
+ * while the memory used by the histogram is constant.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 6;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private final long[] counts = new long[SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    /**
+     * Record a latency
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        final long micros = Math.max(0, nanos / 1000);
+        counts[getBucket(micros)]++;
+        count++;
+        total += micros;
+        max = Math.max(max, micros);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMeanMillis() {
+        return count == 0 ? 0 : total / (double) count / 1000;
+    }
+
+    public synchronized double getMaxMillis() {
+        return max / 1000.0;
+    }
+
+    /**
+     * Get the latency at the given percentile, reported as the upper bound of its bucket
+     *
+     * @param percentile the percentile to get, between 0 and 100
+     * @return the latency in milliseconds, or 0 if no latencies have been recorded
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) return 0;
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) return Math.min(max, getUpperBound(bucket)) / 1000.0;
+        }
+        return max / 1000.0;
+    }
+
+    /**
+     * @return the count, mean, maximum and common percentiles of the histogram in milliseconds
+     */
+    public synchronized JsonObject toJson() {
+        final JsonObject result = new JsonObject();
+        result.addProperty("count", getCount());
+        result.addProperty("meanMillis", getMeanMillis());
+        result.addProperty("p50Millis", getPercentileMillis(50));
+        result.addProperty("p90Millis", getPercentileMillis(90));
+        result.addProperty("p99Millis", getPercentileMillis(99));
+        result.addProperty("p999Millis", getPercentileMillis(99.9));
+        result.addProperty("maxMillis", getMaxMillis());
+        return result;
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} get a bucket each. Larger values are bucketed by their highest
+     * {@link #SUB_BUCKET_BITS} bits, such that the width of a bucket doubles with each power of two.
+     */
+    static int getBucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - HALF_SUB_BUCKETS;
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + subBucket;
+    }
+
+    static long getUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        final int shift = (bucket - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        final long subBucket = (bucket - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,266 @@
+package ecdar.backend;
+
+import ecdar.abstractions.Component;
+import ecdar.abstractions.ComponentInstance;
+import ecdar.abstractions.EcdarSystem;
+import ecdar.abstractions.EcdarSystemEdge;
+import ecdar.abstractions.Project;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Graph from each query of a project to the components and systems it depends on, kept up to date as the queries,
+ * components and systems change. The dependency closure of a query contains the names it references, and the names
+ * of the components instantiated in the systems it references.
+ * A system changes when its instances, operators or edges change, or when a component instantiated in it is renamed.
+ * A query is affected when a component or system in its dependency closure has changed, or when the query itself
+ * has changed, since it was last executed. Only the affected queries need to be executed again.
+ * The graph must be used on the thread owning the model.
+ */
+public class QueryDependencyGraph {
+    private final Map<Query, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<Query>> dependents = new HashMap<>();
+    private final Set<Query> affectedQueries = ConcurrentHashMap.newKeySet();
+    private final Map<Object, Runnable> untrackers = new HashMap<>();
+    private Project project;
+
+    /**
+     * Start tracking the queries, components and systems of the project. All queries are affected until executed.
+     *
+     * @param project the project to track
+     */
+    public void watch(Project project) {
+        this.project = project;
+
+        project.getSystemsProperty().addListener((ListChangeListener<EcdarSystem>) change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(system -> {
+                    untrack(system);
+                    systemChanged(system.getName());
+                });
+                change.getAddedSubList().forEach(system -> {
+                    trackSystem(system);
+                    systemChanged(system.getName());
+                });
+            }
+        });
+        project.getSystemsProperty().forEach(this::trackSystem);
+
+        project.getComponents().addListener((ListChangeListener<Component>) change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(component -> {
+                    untrack(component);
+                    markDependentsAffected(component.getName());
+                });
+                change.getAddedSubList().forEach(component -> {
+                    trackComponent(component);
+                    markDependentsAffected(component.getName());
+                });
+            }
+        });
+        project.getComponents().forEach(this::trackComponent);
+
+        project.getQueries().addListener((ListChangeListener<Query>) change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(query -> {
+                    untrack(query);
+                    setDependencies(query, Collections.emptySet());
+                    affectedQueries.remove(query);
+                });
+                change.getAddedSubList().forEach(this::trackQuery);
+            }
+        });
+        project.getQueries().forEach(this::trackQuery);
+    }
+
+    /**
+     * @param query the query to get the dependencies of
+     * @return the names of the components and systems in the dependency closure of the query
+     */
+    public Set<String> getDependencies(Query query) {
+        return Collections.unmodifiableSet(dependencies.getOrDefault(query, Collections.emptySet()));
+    }
+
+    /**
+     * @param name the name of a component or system
+     * @return the queries with the component or system in their dependency closure
+     */
+    public Set<Query> getDependents(String name) {
+        return Collections.unmodifiableSet(dependents.getOrDefault(name, Collections.emptySet()));
+    }
+
+    public boolean isAffected(Query query) {
+        return affectedQueries.contains(query);
+    }
+
+    /**
+     * @return the affected queries, in the order of the project
+     */
+    public List<Query> getAffectedQueries() {
+        return project.getQueries().stream().filter(affectedQueries::contains).collect(Collectors.toList());
+    }
+
+    /**
+     * Mark the query as unaffected, as if it had been executed, e.g. because its result is known to be up to date
+     *
+     * @param query the query to mark
+     */
+    public void markVerified(Query query) {
+        affectedQueries.remove(query);
+    }
+
+    private void trackQuery(Query query) {
+        final InvalidationListener queryListener = observable -> {
+            setDependencies(query, computeDependencies(query));
+            affectedQueries.add(query);
+        };
+        // Once a query is started, it is executed on the current content of its dependencies
+        final ChangeListener<QueryState> stateListener = (observable, oldValue, newValue) -> {
+            if (newValue == QueryState.RUNNING) affectedQueries.remove(query);
+        };
+
+        query.queryProperty().addListener(queryListener);
+        query.queryStateProperty().addListener(stateListener);
+        untrackers.put(query, () -> {
+            query.queryProperty().removeListener(queryListener);
+            query.queryStateProperty().removeListener(stateListener);
+        });
+
+        setDependencies(query, computeDependencies(query));
+        affectedQueries.add(query);
+    }
+
+    private void trackComponent(Component component) {
+        final Runnable modificationListener = () -> markDependentsAffected(component.getName());
+        // Queries referencing the old name no longer resolve to the component, and those referencing the new name now do.
+        // The closures containing the old name through a system that instantiates the component now contain the new name.
+        final ChangeListener<String> nameListener = (observable, oldValue, newValue) -> {
+            systemChanged(oldValue);
+            markDependentsAffected(newValue);
+        };
+
+        component.addModificationListener(modificationListener);
+        component.nameProperty().addListener(nameListener);
+        untrackers.put(component, () -> {
+            component.removeModificationListener(modificationListener);
+            component.nameProperty().removeListener(nameListener);
+        });
+    }
+
+    private void trackSystem(EcdarSystem system) {
+        final InvalidationListener instanceComponentListener = observable -> systemChanged(system.getName());
+        final ListChangeListener<ComponentInstance> instanceListener = change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(this::untrack);
+                change.getAddedSubList().forEach(instance -> trackInstance(instance, instanceComponentListener));
+            }
+            systemChanged(system.getName());
+        };
+        // Queries referencing the old name are affected as well, as it no longer resolves to the system
+        final ChangeListener<String> nameListener = (observable, oldValue, newValue) -> {
+            systemChanged(oldValue);
+            systemChanged(newValue);
+        };
+
+        // The operators and the edges between them and the instances determine how the instances are combined
+        final InvalidationListener structureListener = observable -> systemChanged(system.getName());
+        final ListChangeListener<EcdarSystemEdge> edgeListener = change -> {
+            while (change.next()) {
+                change.getRemoved().forEach(this::untrack);
+                change.getAddedSubList().forEach(edge -> trackEdge(edge, structureListener));
+            }
+            systemChanged(system.getName());
+        };
+
+        system.nameProperty().addListener(nameListener);
+        system.getComponentInstances().addListener(instanceListener);
+        system.getComponentInstances().forEach(instance -> trackInstance(instance, instanceComponentListener));
+        system.getComponentOperators().addListener(structureListener);
+        system.getEdges().addListener(edgeListener);
+        system.getEdges().forEach(edge -> trackEdge(edge, structureListener));
+        untrackers.put(system, () -> {
+            system.nameProperty().removeListener(nameListener);
+            system.getComponentInstances().removeListener(instanceListener);
+            system.getComponentInstances().forEach(this::untrack);
+            system.getComponentOperators().removeListener(structureListener);
+            system.getEdges().removeListener(edgeListener);
+            system.getEdges().forEach(this::untrack);
+        });
+    }
+
+    private void trackInstance(ComponentInstance instance, InvalidationListener listener) {
+        instance.componentProperty().addListener(listener);
+        untrackers.put(instance, () -> instance.componentProperty().removeListener(listener));
+    }
+
+    private void trackEdge(EcdarSystemEdge edge, InvalidationListener listener) {
+        edge.getParentProperty().addListener(listener);
+        edge.getChildProperty().addListener(listener);
+        untrackers.put(edge, () -> {
+            edge.getParentProperty().removeListener(listener);
+            edge.getChildProperty().removeListener(listener);
+        });
+    }
+
+    private void untrack(Object tracked) {
+        final Runnable untracker = untrackers.remove(tracked);
+        if (untracker != null) untracker.run();
+    }
+
+    /**
+     * Recompute the dependency closures of the queries depending on the name, as the components instantiated in the
+     * system with the name, or the name of a component instantiated in a system, may have changed,
+     * and mark the queries as affected
+     *
+     * @param name the name of the system or component that changed
+     */
+    private void systemChanged(String name) {
+        for (Query query : List.copyOf(getDependents(name))) {
+            setDependencies(query, computeDependencies(query));
+        }
+        markDependentsAffected(name);
+    }
+
+    private void markDependentsAffected(String name) {
+        affectedQueries.addAll(dependents.getOrDefault(name, Collections.emptySet()));
+    }
+
+    private Set<String> computeDependencies(Query query) {
+        final Set<String> names = new HashSet<>(QueryParser.getReferencedNames(query.getQuery()));
+        for (EcdarSystem system : project.getSystemsProperty()) {
+            if (!names.contains(system.getName())) continue;
+
+            for (ComponentInstance instance : system.getComponentInstances()) {
+                if (instance.getComponent() != null) names.add(instance.getComponent().getName());
+            }
+        }
+        return names;
+    }
+
+    private void setDependencies(Query query, Set<String> names) {
+        final Set<String> previous = dependencies.remove(query);
+        if (previous != null) {
+            for (String name : previous) {
+                final Set<Query> queries = dependents.get(name);
+                queries.remove(query);
+                if (queries.isEmpty()) dependents.remove(name);
+            }
+        }
+
+        if (names.isEmpty()) return;
+        dependencies.put(query, names);
+        for (String name : names) dependents.computeIfAbsent(name, (n) -> new HashSet<>()).add(query);
+    }
+}
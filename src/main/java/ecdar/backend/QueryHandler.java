@@ -1,11 +1,13 @@
 package ecdar.backend;
 
+import EcdarProtoBuf.ComponentProtos;
 import EcdarProtoBuf.QueryProtos;
 import EcdarProtoBuf.QueryProtos.QueryRequest.Settings;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
 import ecdar.abstractions.Component;
 import ecdar.abstractions.Query;
 import ecdar.abstractions.QueryState;
@@ -15,20 +17,36 @@ import ecdar.controllers.EcdarController;
 import ecdar.controllers.SignatureArrowController;
 import ecdar.utility.UndoRedoStack;
 import ecdar.utility.helpers.StringValidator;
+import io.grpc.Context;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import javafx.application.Platform;
 import javafx.collections.ObservableList;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class QueryHandler {
     private final BackendDriver backendDriver;
-    private final ArrayList<BackendConnection> connections = new ArrayList<>();
+    private final Set<BackendConnection> connections = ConcurrentHashMap.newKeySet(); // Leased on the request consumer threads, released on the gRPC threads
+    private final QueryResultCache resultCache = new QueryResultCache(1000, 16 * 1024 * 1024);
+    private final Map<String, Long> executionTimes = new ConcurrentHashMap<>();
+    private volatile QueryResultStore resultStore;
 
     public QueryHandler(BackendDriver backendDriver) {
         this.backendDriver = backendDriver;
@@ -39,57 +57,133 @@ public class QueryHandler {
      * @param query             query to be executed
      */
     public void executeQuery(Query query) throws NoSuchElementException {
-        if (query.getQueryState().equals(QueryState.RUNNING) || !StringValidator.validateQuery(query.getQuery())) return;
+        executeQuery(query, GrpcRequest.Priority.USER_QUERY);
+    }
+
+    /**
+     * Executes the specified query with the given priority
+     * @param query             query to be executed
+     * @param priority          the priority of the query relative to other requests to the same backend
+     */
+    public void executeQuery(Query query, GrpcRequest.Priority priority) throws NoSuchElementException {
+        executeQueries(List.of(query), priority);
+    }
+
+    /**
+     * Executes the specified queries in a batch per backend, carrying the components of all its queries.
+     * The batch is split into shards executed in parallel, see {@link QueryBatch}. Thread safe backends execute the
+     * queries of a shard concurrently, up to the maximum number of calls per connection, while other backends
+     * execute them one after another. On each connection, the first query uploads the components,
+     * after which the other queries reference them by their hash. The result of each query is handled as soon as it
+     * is answered, and the wall time of the whole call is reported once all queries have been answered.
+     * @param queries           queries to be executed
+     * @param priority          the priority of the queries relative to other requests to the same backend
+     */
+    public void executeQueries(List<Query> queries, GrpcRequest.Priority priority) {
+        final Map<BackendInstance, List<PendingQuery>> batches = new LinkedHashMap<>();
+        int numberOfPendingQueries = 0;
+        for (Query query : queries) {
+            final PendingQuery pendingQuery = prepareQuery(query);
+            if (pendingQuery != null) {
+                batches.computeIfAbsent(query.getBackend(), (backend) -> new ArrayList<>()).add(pendingQuery);
+                numberOfPendingQueries++;
+            }
+        }
+
+        final BatchProgress progress = new BatchProgress(numberOfPendingQueries, priority);
+        batches.forEach((backend, pendingQueries) -> new QueryBatch(backend, pendingQueries, progress, priority).enqueue());
+    }
+
+    /**
+     * Validates the query and marks it as running. If the result of an earlier execution of the same query on
+     * components with the same content is cached, the result is reused, and the query is not executed.
+     * @param query             query to be executed
+     * @return the query to send to the backend, or null if the query should not be sent
+     */
+    private PendingQuery prepareQuery(Query query) {
+        if (query.getQueryState().equals(QueryState.RUNNING) || !StringValidator.validateQuery(query.getQuery())) return null;
 
         if (query.getQuery().isEmpty()) {
             query.setQueryState(QueryState.SYNTAX_ERROR);
             query.addError("Query is empty");
-            return;
+            return null;
         }
 
         query.setQueryState(QueryState.RUNNING);
         query.errors().set("");
 
-        GrpcRequest request = new GrpcRequest(backendConnection -> {
-            connections.add(backendConnection); // Save reference for closing connection on exit
-
-            var componentsInfoBuilder = BackendHelper.getComponentsInfoBuilder(query.getQuery());
+        final PendingQuery pendingQuery = new PendingQuery(query);
+        if (pendingQuery.resultKey != null) {
+            var cachedResponse = resultCache.get(pendingQuery.resultKey);
+            if (cachedResponse != null) {
+                handleQueryResponse(cachedResponse, query);
+                return null;
+            }
+        }
+        return pendingQuery;
+    }
 
-            StreamObserver<QueryProtos.QueryResponse> responseObserver = new StreamObserver<>() {
-                @Override
-                public void onNext(QueryProtos.QueryResponse value) {
-                    handleQueryResponse(value, query);
-                }
+    /**
+     * Get the cache of verification results reused when executing unchanged queries
+     *
+     * @return the result cache
+     */
+    public QueryResultCache getResultCache() {
+        return resultCache;
+    }
 
-                @Override
-                public void onError(Throwable t) {
-                    handleQueryBackendError(t, query);
+    /**
+     * Loads the results stored in the project folder in a background thread.
+     * Queries that have not been executed yet get the verdict of their stored result,
+     * if the components they are executed on have not changed since.
+     *
+     * @param projectFolder the folder of the project that has been loaded
+     */
+    public void loadResultStore(File projectFolder) {
+        final QueryResultStore store = new QueryResultStore(projectFolder);
+        resultStore = store;
 
-                    // Release backend connection
-                    backendDriver.addBackendConnection(backendConnection);
-                    connections.remove(backendConnection);
-                }
+        final Thread loader = new Thread(() -> {
+            try {
+                store.load();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
 
-                @Override
-                public void onCompleted() {
-                    // Release backend connection
-                    backendDriver.addBackendConnection(backendConnection);
-                    connections.remove(backendConnection);
-                }
-            };
+            Platform.runLater(() -> {
+                // Ignore the results if another project has been loaded in the meantime
+                if (resultStore != store) return;
+                Ecdar.getProject().getQueries().forEach(query -> restoreStoredResult(query, store));
+            });
+        }, "Query result store loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
 
-            var queryBuilder = QueryProtos.QueryRequest.newBuilder()
-                    .setUserId(1)
-                    .setQueryId(UUID.randomUUID().hashCode())
-                    .setSettings(Settings.newBuilder().setDisableClockReduction(true))
-                    .setQuery(query.getType().getQueryName() + ": " + query.getQuery())
-                    .setComponentsInfo(componentsInfoBuilder);
+    /**
+     * Writes the stored results to the project folder, as saving the project removes all other files in the folder
+     *
+     * @param projectFolder the folder the project is saved to
+     * @throws IOException if the store could not be written
+     */
+    public void saveResultStore(File projectFolder) throws IOException {
+        if (resultStore == null) resultStore = new QueryResultStore(projectFolder);
+        resultStore.writeTo(projectFolder);
+    }
 
-            backendConnection.getStub().withDeadlineAfter(backendDriver.getResponseDeadline(), TimeUnit.MILLISECONDS)
-                    .sendQuery(queryBuilder.build(), responseObserver);
-        }, query.getBackend());
+    /**
+     * Whether the stored result of the query was obtained on components that have since changed
+     *
+     * @param query the query to check
+     * @return true if a result is stored for the query, but its components have changed
+     */
+    public boolean isStoredResultStale(Query query) {
+        final QueryResultStore store = resultStore;
+        if (store == null || query.getBackend() == null) return false;
 
-        backendDriver.addRequestToExecutionQueue(request);
+        final QueryResultStore.StoredResult stored = store.get(QueryResultCache.getQueryKey(query.getType(), query.getQuery(), query.getBackend()));
+        return stored != null && stored.isStale(BackendHelper.getComponentsContentHash(BackendHelper.getComponentsInQuery(query.getQuery())));
     }
 
     /**
@@ -103,6 +197,76 @@ public class QueryHandler {
         }
     }
 
+    private void restoreStoredResult(Query query, QueryResultStore store) {
+        if (query.getQueryState() != QueryState.UNKNOWN || query.getBackend() == null || query.getQuery().isEmpty()) return;
+
+        final String queryKey = QueryResultCache.getQueryKey(query.getType(), query.getQuery(), query.getBackend());
+        final QueryResultStore.StoredResult stored = store.get(queryKey);
+        if (stored == null) return;
+
+        // A stale result is not restored, but the query is marked, such that the query pane can show it is outdated
+        if (isStoredResultStale(query)) {
+            query.setStoredResultStale(true);
+            return;
+        }
+
+        final String componentsHash = BackendHelper.getComponentsContentHash(BackendHelper.getComponentsInQuery(query.getQuery()));
+        resultCache.put(queryKey + "|" + componentsHash, stored.getResponse());
+
+        final String failureReason = getFailureReason(stored.getResponse());
+        if (failureReason == null) {
+            query.setQueryState(QueryState.SUCCESSFUL);
+        } else {
+            query.setQueryState(QueryState.ERROR);
+            query.addError(failureReason);
+            restoreFailureHighlighting(query, stored.getResponse());
+        }
+    }
+
+    /**
+     * Highlights the failing locations and edges of a restored failed result, as when the query was executed
+     *
+     * @param query the query the result is restored for
+     * @param value the restored result
+     */
+    private static void restoreFailureHighlighting(Query query, QueryProtos.QueryResponse value) {
+        try {
+            switch (value.getResultCase()) {
+                case REFINEMENT:
+                    query.getStateActionConsumer().accept(value.getRefinement().getState(), value.getRefinement().getActionList());
+                    break;
+                case CONSISTENCY:
+                    query.getStateActionConsumer().accept(value.getConsistency().getState(), value.getConsistency().getActionList());
+                    break;
+                case DETERMINISM:
+                    query.getStateActionConsumer().accept(value.getDeterminism().getState(), value.getDeterminism().getActionList());
+                    break;
+                case IMPLEMENTATION:
+                    query.getStateActionConsumer().accept(value.getImplementation().getState(), new ArrayList<>());
+                    break;
+            }
+        } catch (RuntimeException e) {
+            // The result is still restored, even if the failing state cannot be found in the components
+            e.printStackTrace();
+        }
+    }
+
+    private static String getFailureReason(QueryProtos.QueryResponse value) {
+        switch (value.getResultCase()) {
+            case REFINEMENT:
+                return value.getRefinement().getSuccess() ? null : value.getRefinement().getReason();
+            case CONSISTENCY:
+                return value.getConsistency().getSuccess() ? null : value.getConsistency().getReason();
+            case DETERMINISM:
+                return value.getDeterminism().getSuccess() ? null : value.getDeterminism().getReason();
+            case IMPLEMENTATION:
+                return value.getImplementation().getSuccess() ? null : value.getImplementation().getReason();
+            default:
+                // A reachability check is successful, whether or not the location can be reached
+                return null;
+        }
+    }
+
     private void handleQueryResponse(QueryProtos.QueryResponse value, Query query) {
         // If the query has been cancelled, ignore the result
         if (query.getQueryState() == QueryState.UNKNOWN) return;
@@ -213,21 +377,16 @@ public class QueryHandler {
 
     }
 
-    private void handleQueryBackendError(Throwable t, Query query) {
+    private void handleQueryBackendError(Throwable t, Query query, DeadlinePolicy.ResponseDeadline deadline) {
         // If the query has been cancelled, ignore the error
         if (query.getQueryState() == QueryState.UNKNOWN) return;
 
-        // due to lack of information from backend if the reachability check shows that a location can NOT be reached, this is the most accurate information we can provide
-        if(query.getType() == QueryType.REACHABILITY){
-            Ecdar.showToast("Timeout (no response from backend): The reachability query failed. This might be due to the fact that the location is not reachable.");
-        }
-
         // Each error starts with a capitalized description of the error equal to the gRPC error type encountered
         String errorType = t.getMessage().split(":\\s+", 2)[0];
 
         if ("DEADLINE_EXCEEDED".equals(errorType)) {
             query.setQueryState(QueryState.ERROR);
-            query.getFailureConsumer().accept(new BackendException.QueryErrorException("The backend did not answer the request in time"));
+            query.getFailureConsumer().accept(new BackendException.QueryErrorException(deadline.describeTimeout()));
         } else {
             try {
                 query.setQueryState(QueryState.ERROR);
@@ -236,6 +395,11 @@ public class QueryHandler {
                 e.printStackTrace();
             }
         }
+
+        // due to lack of information from backend if the reachability check shows that a location can NOT be reached, this is the most accurate information we can provide
+        if(query.getType() == QueryType.REACHABILITY){
+            Ecdar.showToast("Timeout (no response from backend): The reachability query failed. This might be due to the fact that the location is not reachable.");
+        }
     }
 
     private void addGeneratedComponent(Component newComponent) {
@@ -277,4 +441,334 @@ public class QueryHandler {
             EcdarController.getActiveCanvasPresentation().getController().setActiveModel(newComponent);
         });
     }
+
+    /**
+     * A query waiting to be sent to the backend, together with the components it is executed on
+     */
+    private static class PendingQuery {
+        private final Query query;
+        private final List<Component> components;
+        private final String queryKey;
+        private final String componentsHash;
+        private final String resultKey;
+        private long estimatedExecutionTime;
+
+        PendingQuery(Query query) {
+            this.query = query;
+            this.components = BackendHelper.getComponentsInQuery(query.getQuery());
+            this.queryKey = query.getBackend() == null ? null : QueryResultCache.getQueryKey(query.getType(), query.getQuery(), query.getBackend());
+            this.componentsHash = BackendHelper.getComponentsContentHash(components);
+            this.resultKey = queryKey == null ? null : queryKey + "|" + componentsHash;
+        }
+    }
+
+    /**
+     * Tracks the queries of a single call to {@link #executeQueries}, and reports the wall time once all are answered.
+     * Background checks are not reported, as the user has not asked for them.
+     */
+    private static class BatchProgress {
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicInteger unansweredQueries;
+        private final int numberOfQueries;
+        private final boolean report;
+        private final AtomicInteger numberOfShards = new AtomicInteger();
+
+        BatchProgress(int numberOfQueries, GrpcRequest.Priority priority) {
+            this.numberOfQueries = numberOfQueries;
+            this.unansweredQueries = new AtomicInteger(numberOfQueries);
+            this.report = priority != GrpcRequest.Priority.BACKGROUND;
+        }
+
+        void queryAnswered() {
+            if (unansweredQueries.decrementAndGet() != 0 || numberOfQueries < 2 || !report) return;
+
+            final long wallTime = System.currentTimeMillis() - startTime;
+            Ecdar.showToast("Executed " + numberOfQueries + " queries in " + String.format("%.1f s", wallTime / 1000.0)
+                    + " on " + numberOfShards.get() + " engine processes");
+        }
+    }
+
+    /**
+     * Queries to the same backend sharing a set of components. The queries are split into a shard per engine process
+     * the backend can run, and each shard is executed over its own connection. For thread safe backends, a shard is
+     * only added for each maximum number of calls per connection the queries fill. The queries are assigned to the shards
+     * longest-processing-time-first, based on their execution times in earlier runs. A shard that runs out of queries
+     * steals from the shard with the most remaining work, such that all shards finish at about the same time.
+     */
+    private class QueryBatch {
+        private final List<PendingQuery> queries;
+        private final List<QueryShard> shards = new ArrayList<>();
+        private final ComponentProtos.ComponentsInfo.Builder componentsInfo;
+        private final BatchProgress progress;
+
+        QueryBatch(BackendInstance backend, List<PendingQuery> queries, BatchProgress progress, GrpcRequest.Priority priority) {
+            this.queries = queries;
+            this.progress = progress;
+
+            // The components of all queries, in the order of the project, such that equal sets get the same hash
+            final Set<Component> components = new HashSet<>();
+            queries.forEach(pendingQuery -> components.addAll(pendingQuery.components));
+            final List<Component> orderedComponents = new ArrayList<>();
+            for (Component component : Ecdar.getProject().getComponents()) {
+                if (components.contains(component)) orderedComponents.add(component);
+            }
+            final long serializationStart = System.nanoTime();
+            this.componentsInfo = BackendHelper.getComponentsInfoBuilder(orderedComponents);
+            if (backend != null) {
+                backendDriver.getStatistics(backend).recordLatency(BackendStatistics.Stage.SERIALIZATION, null, System.nanoTime() - serializationStart);
+            }
+
+            // A thread safe backend executes the queries of a shard concurrently
+            final int numberOfShards;
+            if (backend == null) {
+                numberOfShards = 1;
+            } else if (backend.isThreadSafe()) {
+                final int maxCalls = Math.max(1, backend.getMaxCallsPerConnection());
+                numberOfShards = Math.max(1, Math.min(backend.getNumberOfInstances(), (queries.size() + maxCalls - 1) / maxCalls));
+            } else {
+                numberOfShards = Math.max(1, Math.min(backend.getNumberOfInstances(), queries.size()));
+            }
+            for (int i = 0; i < numberOfShards; i++) {
+                final QueryShard shard = new QueryShard(this);
+                shard.request = new GrpcRequest(shard::execute, backend, priority);
+                shards.add(shard);
+            }
+            progress.numberOfShards.addAndGet(numberOfShards);
+
+            assignQueries();
+            queries.forEach(pendingQuery -> pendingQuery.query.setCancelHandler(this::cancelIfAllQueriesCancelled));
+        }
+
+        /**
+         * Assigns the queries to the shards, longest first, each to the shard with the least work assigned so far
+         */
+        private void assignQueries() {
+            long knownTime = 0;
+            int knownQueries = 0;
+            for (PendingQuery pendingQuery : queries) {
+                final Long executionTime = pendingQuery.queryKey == null ? null : executionTimes.get(pendingQuery.queryKey);
+                pendingQuery.estimatedExecutionTime = executionTime == null ? -1 : executionTime;
+                if (executionTime != null) {
+                    knownTime += executionTime;
+                    knownQueries++;
+                }
+            }
+
+            // Queries that have not been executed before are expected to take the average time of the others
+            final long defaultEstimate = knownQueries == 0 ? 1 : Math.max(1, knownTime / knownQueries);
+            final List<PendingQuery> sortedQueries = new ArrayList<>(queries);
+            sortedQueries.forEach(pendingQuery -> {
+                if (pendingQuery.estimatedExecutionTime < 0) pendingQuery.estimatedExecutionTime = defaultEstimate;
+            });
+            sortedQueries.sort(Comparator.comparingLong((PendingQuery pendingQuery) -> pendingQuery.estimatedExecutionTime).reversed());
+
+            for (PendingQuery pendingQuery : sortedQueries) {
+                final QueryShard shard = Collections.min(shards, Comparator.comparingLong(s -> s.assignedWork));
+                shard.unsent.addLast(pendingQuery);
+                shard.assignedWork += pendingQuery.estimatedExecutionTime;
+            }
+        }
+
+        void enqueue() {
+            shards.forEach(shard -> backendDriver.addRequestToExecutionQueue(shard.request));
+        }
+
+        private void cancelIfAllQueriesCancelled() {
+            for (PendingQuery pendingQuery : queries) {
+                if (pendingQuery.query.getQueryState() == QueryState.RUNNING) return;
+            }
+            shards.forEach(shard -> shard.request.cancel());
+        }
+
+        /**
+         * Takes the next query for the shard, from its own queries, or else from the end of the queries of the shard
+         * with the most remaining work. Cancelled queries are skipped. Must be called while holding the batch lock.
+         *
+         * @param shard the shard to take a query for
+         * @return the query or null, if no queries are left to execute
+         */
+        private PendingQuery takeQuery(QueryShard shard) {
+            while (true) {
+                PendingQuery next = shard.unsent.pollFirst();
+                QueryShard owner = shard;
+                if (next == null) {
+                    owner = null;
+                    for (QueryShard other : shards) {
+                        if (!other.unsent.isEmpty() && (owner == null || other.assignedWork > owner.assignedWork)) owner = other;
+                    }
+                    if (owner == null) {
+                        // Shards that have not started yet have nothing left to do
+                        shards.forEach(other -> {
+                            if (other.connection == null) other.request.cancel();
+                        });
+                        return null;
+                    }
+                    next = owner.unsent.pollLast();
+                }
+                owner.assignedWork -= next.estimatedExecutionTime;
+
+                if (next.query.getQueryState() == QueryState.RUNNING) return next;
+                progress.queryAnswered();
+            }
+        }
+    }
+
+    /**
+     * The part of a {@link QueryBatch} executed over a single connection.
+     * The first query uploads the components and is therefore sent alone. For thread safe backends, the rest are sent
+     * concurrently, up to the maximum number of calls per connection of the backend.
+     */
+    private class QueryShard {
+        private final QueryBatch batch;
+        private final Deque<PendingQuery> unsent = new ArrayDeque<>();
+        private long assignedWork = 0;
+        private GrpcRequest request;
+        private Context shardContext;
+        private BackendConnection connection;
+        private int queriesInFlight = 0;
+        private boolean componentsUploaded = false;
+        private boolean released = false;
+
+        QueryShard(QueryBatch batch) {
+            this.batch = batch;
+        }
+
+        void execute(BackendConnection backendConnection) {
+            connections.add(backendConnection); // Save reference for closing connection on exit
+            synchronized (batch) {
+                connection = backendConnection;
+                shardContext = Context.current();
+            }
+            sendNext();
+        }
+
+        /**
+         * Sends the next queries, as long as the connection allows more queries in flight.
+         * Releases the connection once no queries are left and all sent queries have been answered.
+         */
+        private void sendNext() {
+            while (true) {
+                final PendingQuery next;
+                synchronized (batch) {
+                    final BackendInstance backend = connection.getBackendInstance();
+                    final int maxQueriesInFlight = componentsUploaded && backend.isThreadSafe() ? Math.max(1, backend.getMaxCallsPerConnection()) : 1;
+                    if (queriesInFlight >= maxQueriesInFlight) return;
+
+                    next = batch.takeQuery(this);
+                    if (next == null) {
+                        if (queriesInFlight > 0 || released) return;
+                        released = true;
+                    } else {
+                        queriesInFlight++;
+                    }
+                }
+
+                if (next == null) {
+                    // Release backend connection
+                    backendDriver.addBackendConnection(connection);
+                    connections.remove(connection);
+                    return;
+                }
+                send(next);
+            }
+        }
+
+        private void queryAnswered() {
+            synchronized (batch) {
+                queriesInFlight--;
+                componentsUploaded = true;
+            }
+        }
+
+        private void send(PendingQuery pendingQuery) {
+            final Query query = pendingQuery.query;
+            final Long executionTime = pendingQuery.queryKey == null ? null : executionTimes.get(pendingQuery.queryKey);
+            send(pendingQuery, backendDriver.getDeadlinePolicy().getQueryDeadline(query.getBackend(), query.getType(), query.getDeadline(), executionTime == null ? -1 : executionTime));
+        }
+
+        private void send(PendingQuery pendingQuery, DeadlinePolicy.ResponseDeadline deadline) {
+            final Query query = pendingQuery.query;
+
+            // Each query gets its own context, such that cancelling it does not cancel the rest of the batch
+            final Context.CancellableContext queryContext = shardContext.withCancellation();
+            query.setCancelHandler(() -> queryContext.cancel(null));
+            if (query.getQueryState() != QueryState.RUNNING) queryContext.cancel(null);
+
+            final DeadlinePolicy deadlinePolicy = backendDriver.getDeadlinePolicy();
+            final BackendStatistics statistics = backendDriver.getStatistics(connection.getBackendInstance());
+            final long startTime = System.nanoTime();
+
+            StreamObserver<QueryProtos.QueryResponse> responseObserver = new StreamObserver<>() {
+                @Override
+                public void onNext(QueryProtos.QueryResponse value) {
+                    // The engine time ends when the response arrives, before it is cached and applied
+                    statistics.recordLatency(BackendStatistics.Stage.ENGINE, query.getType(), System.nanoTime() - startTime);
+                    if (pendingQuery.resultKey != null) {
+                        resultCache.put(pendingQuery.resultKey, value);
+                        final QueryResultStore store = resultStore;
+                        if (store != null) store.put(pendingQuery.queryKey, pendingQuery.componentsHash, value);
+                    }
+                    final long applicationStart = System.nanoTime();
+                    handleQueryResponse(value, query);
+                    statistics.recordLatency(BackendStatistics.Stage.RESULT_APPLICATION, query.getType(), System.nanoTime() - applicationStart);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    // A timed out query took at least as long as the deadline, which lets the next deadline grow.
+                    // Retries are not recorded, as their longer deadline would inflate the deadlines of all queries of the type.
+                    final boolean timedOut = Status.fromThrowable(t).getCode() == Status.Code.DEADLINE_EXCEEDED;
+                    if (timedOut) {
+                        if (!deadline.isRetry()) deadlinePolicy.recordQueryLatency(query.getBackend(), query.getType(), deadline.getMillis());
+                        if (pendingQuery.queryKey != null) executionTimes.put(pendingQuery.queryKey, deadline.getMillis());
+                    }
+
+                    // A query that timed out is retried once with a longer deadline, unless the user set its deadline
+                    if (timedOut && !deadline.isRetry() && query.getDeadline() <= 0 && query.getQueryState() == QueryState.RUNNING) {
+                        send(pendingQuery, deadlinePolicy.getRetryDeadline(deadline));
+                        return;
+                    }
+
+                    try {
+                        handleQueryBackendError(t, query, deadline);
+                    } catch (RuntimeException e) {
+                        // A failing error handler must not keep the rest of the shard from being sent
+                        e.printStackTrace();
+                    }
+
+                    queryAnswered();
+                    sendNext();
+                    // Reported once the connection may have been released, such that the report cannot hold it
+                    batch.progress.queryAnswered();
+                }
+
+                @Override
+                public void onCompleted() {
+                    final long executionTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                    if (!deadline.isRetry()) deadlinePolicy.recordQueryLatency(query.getBackend(), query.getType(), executionTime);
+                    if (pendingQuery.queryKey != null) executionTimes.put(pendingQuery.queryKey, executionTime);
+
+                    queryAnswered();
+                    sendNext();
+                    // Reported once the connection may have been released, such that the report cannot hold it
+                    batch.progress.queryAnswered();
+                }
+            };
+
+            var queryBuilder = QueryProtos.QueryRequest.newBuilder()
+                    .setUserId(1)
+                    .setQueryId(UUID.randomUUID().hashCode())
+                    .setSettings(Settings.newBuilder().setDisableClockReduction(true))
+                    .setQuery(query.getType().getQueryName() + ": " + query.getQuery());
+
+            // An engine that cannot resolve the referenced components answers with an unknown components error
+            queryContext.run(() -> connection.sendWithComponents(batch.componentsInfo,
+                    (info, observer) -> connection.getStub()
+                            .withDeadlineAfter(deadline.getMillis(), TimeUnit.MILLISECONDS)
+                            .sendQuery(queryBuilder.setComponentsInfo(info).build(), observer),
+                    response -> response.getResultCase() == QueryProtos.QueryResponse.ResultCase.ERROR
+                        && BackendConnection.isUnknownComponentsError(response.getError()),
+                    responseObserver));
+        }
+    }
 }
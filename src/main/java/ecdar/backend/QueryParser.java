@@ -0,0 +1,158 @@
+package ecdar.backend;
+
+import ecdar.abstractions.QueryType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parser for query expressions, used to find the models referenced by a query.
+ * The supported grammar is:
+ * <pre>
+ * query  := system [("&lt;=" | "≤") system] ["-&gt;" states] ["save-as" name]
+ * system := term (("||" | "&amp;&amp;" | "\") term)*
+ * term   := "(" system ")" | name ["." location]
+ * </pre>
+ * The states of a reachability query refer to locations and clocks, not models, and are therefore skipped.
+ */
+public final class QueryParser {
+    private final List<Token> tokens;
+    private final Set<String> referencedNames = new LinkedHashSet<>();
+    private int position = 0;
+
+    private QueryParser(String query) {
+        this.tokens = tokenize(stripQueryType(query));
+    }
+
+    /**
+     * Gets the names of the models referenced by the query, in the order they appear.
+     * If the query cannot be parsed, all names outside the states of a reachability query are returned.
+     *
+     * @param query the query, with or without its query type prefix
+     * @return the referenced names
+     */
+    public static Set<String> getReferencedNames(String query) {
+        final QueryParser parser = new QueryParser(query);
+        try {
+            parser.parseQuery();
+        } catch (IllegalArgumentException e) {
+            parser.referencedNames.clear();
+            for (Token token : parser.tokens) {
+                if (token.is("->")) break;
+                if (token.type == TokenType.NAME) parser.referencedNames.add(token.text);
+            }
+        }
+        return parser.referencedNames;
+    }
+
+    private static String stripQueryType(String query) {
+        final int separator = query.indexOf(':');
+        if (separator >= 0 && QueryType.fromString(query.substring(0, separator).trim()) != null) {
+            return query.substring(separator + 1);
+        }
+        return query;
+    }
+
+    private void parseQuery() {
+        parseSystem();
+        if (peek().is("<=") || peek().is("≤")) {
+            position++;
+            parseSystem();
+        }
+
+        // The remaining tokens are either reachability states or the name of a generated component
+        if (peek().is("->") || peek().is("save-as")) return;
+        expect(TokenType.END);
+    }
+
+    private void parseSystem() {
+        parseTerm();
+        while (peek().is("||") || peek().is("&&") || peek().is("\\")) {
+            position++;
+            parseTerm();
+        }
+    }
+
+    private void parseTerm() {
+        final Token token = next();
+        if (token.is("(")) {
+            parseSystem();
+            if (!next().is(")")) throw new IllegalArgumentException("Expected ')'");
+        } else if (token.type == TokenType.NAME) {
+            referencedNames.add(token.text);
+
+            // Skip the location of a component, e.g. in "Receiver.L4"
+            if (peek().is(".")) {
+                position++;
+                expect(TokenType.NAME);
+                position++;
+            }
+        } else {
+            throw new IllegalArgumentException("Unexpected '" + token.text + "'");
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token next() {
+        final Token token = tokens.get(position);
+        if (token.type != TokenType.END) position++;
+        return token;
+    }
+
+    private void expect(TokenType type) {
+        if (peek().type != type) throw new IllegalArgumentException("Unexpected '" + peek().text + "'");
+    }
+
+    private static List<Token> tokenize(String query) {
+        final List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            final char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (query.startsWith("save-as", i)) {
+                tokens.add(new Token(TokenType.SYMBOL, "save-as"));
+                i += "save-as".length();
+            } else if (isNameCharacter(c)) {
+                final int start = i;
+                while (i < query.length() && isNameCharacter(query.charAt(i))) i++;
+                tokens.add(new Token(TokenType.NAME, query.substring(start, i)));
+            } else if (query.startsWith("<=", i) || query.startsWith("||", i) || query.startsWith("&&", i) || query.startsWith("->", i)) {
+                tokens.add(new Token(TokenType.SYMBOL, query.substring(i, i + 2)));
+                i += 2;
+            } else {
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c)));
+                i++;
+            }
+        }
+        tokens.add(new Token(TokenType.END, "end of query"));
+        return tokens;
+    }
+
+    private static boolean isNameCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private enum TokenType {
+        NAME, SYMBOL, END
+    }
+
+    private static class Token {
+        private final TokenType type;
+        private final String text;
+
+        Token(TokenType type, String text) {
+            this.type = type;
+            this.text = text;
+        }
+
+        boolean is(String symbol) {
+            return type == TokenType.SYMBOL && text.equals(symbol);
+        }
+    }
+}
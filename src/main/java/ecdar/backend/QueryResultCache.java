@@ -0,0 +1,143 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.QueryType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of verification results, keyed by the content of the query and the components it is executed on.
+ * Only results that are determined entirely by the query and the components are cached.
+ * The least recently used results are evicted when either the number of results or their total size exceeds its cap.
+ */
+public class QueryResultCache {
+    private final LinkedHashMap<String, QueryProtos.QueryResponse> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxSizeInBytes;
+    private long sizeInBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public QueryResultCache(int maxEntries, long maxSizeInBytes) {
+        this.maxEntries = maxEntries;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    /**
+     * Generates the key identifying a query execution
+     *
+     * @param type           the type of the query
+     * @param query          the query text
+     * @param backend        the backend instance executing the query
+     * @param componentsHash the content hash of the components the query is executed on
+     * @return the key of the query execution
+     */
+    public static String getKey(QueryType type, String query, BackendInstance backend, String componentsHash) {
+        return getQueryKey(type, query, backend) + "|" + componentsHash;
+    }
+
+    /**
+     * Generates the key identifying a query, independently of the content of the components it is executed on
+     *
+     * @param type    the type of the query
+     * @param query   the query text
+     * @param backend the backend instance executing the query
+     * @return the key of the query
+     */
+    public static String getQueryKey(QueryType type, String query, BackendInstance backend) {
+        return type.getQueryName() + "|" + normalizeQuery(query) + "|" + backend.getName();
+    }
+
+    /**
+     * Removes all whitespace from the query, as it has no meaning in the query language
+     *
+     * @param query the query to normalize
+     * @return the normalized query
+     */
+    static String normalizeQuery(String query) {
+        return query.replaceAll("\\s+", "");
+    }
+
+    /**
+     * Whether the response is determined entirely by the query and components, and can therefore be cached
+     *
+     * @param response the response to check
+     * @return true if the response can be cached
+     */
+    public static boolean isCacheable(QueryProtos.QueryResponse response) {
+        switch (response.getResultCase()) {
+            case REFINEMENT:
+            case CONSISTENCY:
+            case DETERMINISM:
+            case IMPLEMENTATION:
+            case REACHABILITY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get the cached result of a query execution
+     *
+     * @param key the key of the query execution
+     * @return the cached response or null, if no response is cached for the key
+     */
+    public synchronized QueryProtos.QueryResponse get(String key) {
+        QueryProtos.QueryResponse response = results.get(key);
+        if (response == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return response;
+    }
+
+    /**
+     * Caches the response of a query execution, if the response is cacheable
+     *
+     * @param key      the key of the query execution
+     * @param response the response from the backend
+     */
+    public synchronized void put(String key, QueryProtos.QueryResponse response) {
+        if (!isCacheable(response)) return;
+
+        QueryProtos.QueryResponse previous = results.put(key, response);
+        if (previous != null) sizeInBytes -= previous.getSerializedSize();
+        sizeInBytes += response.getSerializedSize();
+
+        evictLeastRecentlyUsed();
+    }
+
+    public synchronized void clear() {
+        results.clear();
+        sizeInBytes = 0;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<String, QueryProtos.QueryResponse>> iterator = results.entrySet().iterator();
+        while ((results.size() > maxEntries || sizeInBytes > maxSizeInBytes) && iterator.hasNext()) {
+            sizeInBytes -= iterator.next().getValue().getSerializedSize();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Verification results persisted in the project folder, such that they survive between sessions.
+ * Each line of the file holds the key of a query, the content hash of the components it was executed on,
+ * and the response from the backend. New results are appended to the file, and only the latest result of each
+ * query is kept, when the file is rewritten on load or when the project is saved.
+ */
+public class QueryResultStore {
+    public static final String FILENAME = "QueryResults.log";
+    private static final String SEPARATOR = "\t";
+
+    private final Map<String, StoredResult> results = new LinkedHashMap<>();
+    private File file;
+
+    /**
+     * @param directory the project folder containing the store
+     */
+    public QueryResultStore(File directory) {
+        this.file = new File(directory, FILENAME);
+    }
+
+    /**
+     * Reads the stored results from the file, skipping malformed lines.
+     * If the file contains outdated results, it is rewritten with only the latest result of each query.
+     *
+     * @throws IOException if the file could not be read
+     */
+    public synchronized void load() throws IOException {
+        results.clear();
+        if (!file.exists()) return;
+
+        int lines = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                final String[] fields = line.split(SEPARATOR);
+                if (fields.length != 3) continue;
+
+                try {
+                    final QueryProtos.QueryResponse response = QueryProtos.QueryResponse.parseFrom(Base64.getDecoder().decode(fields[2]));
+                    results.put(fields[0], new StoredResult(fields[1], response));
+                } catch (IllegalArgumentException | InvalidProtocolBufferException e) {
+                    // The line was only partially written, ignore it
+                }
+            }
+        }
+
+        if (lines > results.size()) writeTo(file.getParentFile());
+    }
+
+    /**
+     * Get the latest stored result of a query
+     *
+     * @param queryKey the key of the query, see {@link QueryResultCache#getQueryKey}
+     * @return the stored result or null, if no result is stored for the query
+     */
+    public synchronized StoredResult get(String queryKey) {
+        return results.get(queryKey);
+    }
+
+    /**
+     * Stores the response of a query execution and appends it to the file, if the response is cacheable
+     *
+     * @param queryKey       the key of the query, see {@link QueryResultCache#getQueryKey}
+     * @param componentsHash the content hash of the components the query was executed on
+     * @param response       the response from the backend
+     */
+    public synchronized void put(String queryKey, String componentsHash, QueryProtos.QueryResponse response) {
+        if (!QueryResultCache.isCacheable(response)) return;
+
+        final StoredResult result = new StoredResult(componentsHash, response);
+        if (result.equals(results.put(queryKey, result))) return;
+
+        try (Writer writer = new FileWriter(file, true)) {
+            writeLine(writer, queryKey, result);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the latest result of each query to the store in the given folder, and continues appending to that store
+     *
+     * @param directory the project folder to write the store to
+     * @throws IOException if the file could not be written
+     */
+    public synchronized void writeTo(File directory) throws IOException {
+        file = new File(directory, FILENAME);
+        try (Writer writer = new FileWriter(file, false)) {
+            for (Map.Entry<String, StoredResult> entry : results.entrySet()) {
+                writeLine(writer, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    private static void writeLine(Writer writer, String queryKey, StoredResult result) throws IOException {
+        writer.write(queryKey + SEPARATOR + result.getComponentsHash() + SEPARATOR
+                + Base64.getEncoder().encodeToString(result.getResponse().toByteArray()) + System.lineSeparator());
+    }
+
+    /**
+     * The latest result of a query together with the content hash of the components it was executed on
+     */
+    public static class StoredResult {
+        private final String componentsHash;
+        private final QueryProtos.QueryResponse response;
+
+        StoredResult(String componentsHash, QueryProtos.QueryResponse response) {
+            this.componentsHash = componentsHash;
+            this.response = response;
+        }
+
+        public String getComponentsHash() {
+            return componentsHash;
+        }
+
+        public QueryProtos.QueryResponse getResponse() {
+            return response;
+        }
+
+        /**
+         * Whether the components of the query have changed since the result was stored
+         *
+         * @param componentsHash the current content hash of the components of the query
+         * @return true if the result no longer applies to the query
+         */
+        public boolean isStale(String componentsHash) {
+            return !this.componentsHash.equals(componentsHash);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StoredResult)) return false;
+            StoredResult that = (StoredResult) o;
+            return componentsHash.equals(that.componentsHash) && response.equals(that.response);
+        }
+
+        @Override
+        public int hashCode() {
+            return componentsHash.hashCode() * 31 + response.hashCode();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ecdar.backend;
+
+import ecdar.abstractions.BackendInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiPredicate;
+
+/**
+ * Keeps track of the ports of remote backends that have an engine accepting connections.
+ * All ports in the range of a backend are probed at the same time, such that discovering the engines of a backend
+ * takes about one probe, regardless of the size of its port range. The live ports are refreshed in the background,
+ * such that engines started or stopped after the first probe are discovered without delaying the requests.
+ */
+class RemoteEndpointRegistry {
+    private final Map<BackendInstance, Set<Integer>> liveEndpoints = new ConcurrentHashMap<>();
+    private final Map<BackendInstance, CompletableFuture<Set<Integer>>> pendingProbes = new ConcurrentHashMap<>();
+    private final ExecutorService probeExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Backend endpoint probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final BiPredicate<String, Integer> probe;
+
+    /**
+     * @param probe checks whether an engine accepts connections on the given host and port,
+     *              it must give up within a short timeout, as it is run once for every port of a backend
+     */
+    RemoteEndpointRegistry(BiPredicate<String, Integer> probe) {
+        this.probe = probe;
+    }
+
+    /**
+     * Get the ports of the backend with an engine accepting connections. The ports are probed, if they have not been yet.
+     *
+     * @param backend the remote backend instance
+     * @return the live ports of the backend
+     */
+    Set<Integer> getLiveEndpoints(BackendInstance backend) {
+        final Set<Integer> ports = liveEndpoints.get(backend);
+        return ports != null ? ports : refresh(backend).join();
+    }
+
+    /**
+     * Probe all ports of the backend concurrently. A probe that is already running for the backend is reused.
+     *
+     * @param backend the remote backend instance
+     * @return the live ports of the backend, once all ports have been probed
+     */
+    CompletableFuture<Set<Integer>> refresh(BackendInstance backend) {
+        return pendingProbes.computeIfAbsent(backend, (bi) -> {
+            final String host = bi.getBackendLocation();
+            final List<CompletableFuture<Integer>> probes = new ArrayList<>();
+            for (int port = bi.getPortStart(); port <= bi.getPortEnd(); port++) {
+                final int probedPort = port;
+                probes.add(CompletableFuture.supplyAsync(() -> probe.test(host, probedPort) ? probedPort : null, probeExecutor)
+                        .exceptionally((e) -> null));
+            }
+
+            // Completed on the executor, as the probe must not be removed while it is being added
+            return CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new)).thenApplyAsync((ignored) -> {
+                final Set<Integer> ports = ConcurrentHashMap.newKeySet();
+                for (CompletableFuture<Integer> result : probes) {
+                    if (result.join() != null) ports.add(result.join());
+                }
+
+                liveEndpoints.put(bi, ports);
+                pendingProbes.remove(bi);
+                return ports;
+            }, probeExecutor);
+        });
+    }
+
+    /**
+     * Probe the ports of all backends that have been probed before, without waiting for the probes to finish
+     */
+    void refreshAll() {
+        for (BackendInstance backend : liveEndpoints.keySet()) refresh(backend);
+    }
+
+    /**
+     * Stop handing out the port until it is found to be live by a later probe
+     *
+     * @param backend the remote backend instance
+     * @param port    the port that did not accept a connection
+     */
+    void markDead(BackendInstance backend, int port) {
+        liveEndpoints.getOrDefault(backend, Collections.emptySet()).remove(port);
+    }
+
+    /**
+     * Forget the live ports of all backends, such that they are probed again when needed
+     */
+    void clear() {
+        liveEndpoints.clear();
+    }
+}
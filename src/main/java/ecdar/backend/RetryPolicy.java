@@ -0,0 +1,48 @@
+package ecdar.backend;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a request that could not be dispatched is retried.
+ * The delay grows exponentially with each retry, up to a maximum, and is spread randomly by the jitter,
+ * such that requests failing at the same time are not all retried at the same time.
+ */
+class RetryPolicy {
+    private final int maxTries;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final double jitter;
+
+    /**
+     * @param maxTries     the number of times a request is tried, before it is given up
+     * @param initialDelay the delay before the first retry in milliseconds
+     * @param maxDelay     the maximum delay before a retry in milliseconds
+     * @param jitter       the fraction, between 0 and 1, by which the delay is randomly reduced
+     */
+    RetryPolicy(int maxTries, long initialDelay, long maxDelay, double jitter) {
+        this.maxTries = maxTries;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.jitter = jitter;
+    }
+
+    /**
+     * @param request the request that failed
+     * @return true if the request has tries left in its budget
+     */
+    boolean shouldRetry(GrpcRequest request) {
+        return request.tries < maxTries;
+    }
+
+    /**
+     * Get the delay before the next try of the request
+     *
+     * @param request the request that failed
+     * @return the delay in milliseconds
+     */
+    long getDelay(GrpcRequest request) {
+        final int retry = Math.max(0, request.tries - 1);
+        final long delay = Math.min(maxDelay, initialDelay << Math.min(retry, 30));
+        return delay - (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+    }
+}
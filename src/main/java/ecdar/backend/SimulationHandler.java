@@ -7,9 +7,13 @@ import EcdarProtoBuf.ObjectProtos.Decision;
 import ecdar.Ecdar;
 import ecdar.abstractions.*;
 import ecdar.simulation.SimulationState;
+import io.grpc.Context;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -18,10 +22,17 @@ import javafx.util.Pair;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import EcdarProtoBuf.QueryProtos.SimulationInfo;
 import EcdarProtoBuf.QueryProtos.SimulationStepRequest;
@@ -41,11 +52,23 @@ public class SimulationHandler {
     private int numberOfSteps;
     private String simulationQuery;
     private ArrayList<Component> simulationComponents = new ArrayList<>();
+    private ModelIndex simulationComponentsIndex = new ModelIndex(FXCollections.observableArrayList());
     private final ObservableMap<String, BigDecimal> simulationVariables = FXCollections.observableHashMap();
     private final ObservableMap<String, BigDecimal> simulationClocks = FXCollections.observableHashMap();
     public ObservableList<SimulationState> traceLog = FXCollections.observableArrayList();
     private final BackendDriver backendDriver;
-    private final ArrayList<BackendConnection> connections = new ArrayList<>();
+    private final Set<BackendConnection> connections = ConcurrentHashMap.newKeySet(); // Leased on the request consumer threads, released on the gRPC threads
+    private Context.CancellableContext simulationContext = Context.ROOT.withCancellation();
+    private final SimulationStepMemo stepMemo = new SimulationStepMemo(10000, 16 * 1024 * 1024);
+    private final Executor modelExecutor;
+
+    // Successors of the current state are prefetched in the background, such that taking one of the steps is instant
+    private static final int PREFETCH_COUNT = 3;
+    private final BooleanProperty prefetchEnabled = new SimpleBooleanProperty(false);
+    private final Map<SimulationStepMemo.Key, Prefetch> prefetches = new ConcurrentHashMap<>();
+    private final Set<SimulationStepMemo.Key> prefetchedSteps = ConcurrentHashMap.newKeySet(); // Memoized by a prefetch, but not taken yet
+    private final AtomicLong prefetchHits = new AtomicLong();
+    private final AtomicLong prefetchMisses = new AtomicLong();
 
     private List<String> ComponentsInSimulation = new ArrayList<>();
 
@@ -53,7 +76,24 @@ public class SimulationHandler {
      * Empty constructor that should be used if the system or project has not be initialized yet
      */
     public SimulationHandler(BackendDriver backendDriver) {
+        this(backendDriver, Platform::runLater);
+    }
+
+    /**
+     * @param backendDriver the driver executing the requests of the simulation
+     * @param modelExecutor executes tasks on the thread owning the model, the JavaFX application thread
+     */
+    SimulationHandler(BackendDriver backendDriver, Executor modelExecutor) {
         this.backendDriver = backendDriver;
+        this.modelExecutor = modelExecutor;
+
+        prefetchEnabled.addListener((observable, oldValue, newValue) -> {
+            if (newValue) {
+                if (currentState.get() != null) prefetchSuccessors(currentState.get());
+            } else {
+                cancelPrefetches();
+            }
+        });
     }
 
     public void clearComponentsInSimulation() {
@@ -83,45 +123,45 @@ public class SimulationHandler {
     public void initialStep() {
         initializeSimulation();
 
-        GrpcRequest request = new GrpcRequest(backendConnection -> {
+        // A new simulation session, the steps of the previous one are not taken again
+        cancelPrefetches();
+        stepMemo.clear();
+        prefetchedSteps.clear();
+
+        var comInfo = BackendHelper.getComponentsInfoBuilder(Ecdar.getProject().getComponents());
+        GrpcRequest request = newRequest(backendConnection -> {
+            final DeadlinePolicy.ResponseDeadline deadline = backendDriver.getDeadlinePolicy().getSimulationDeadline(backendConnection.getBackendInstance());
+            final long startTime = System.currentTimeMillis();
+
             StreamObserver<SimulationStepResponse> responseObserver = new StreamObserver<>() {
                 @Override
                 public void onNext(QueryProtos.SimulationStepResponse value) {
-                    // TODO this is temp solution to compile but should be fixed to handle ambiguity
-                    currentState.set(new SimulationState(value.getNewDecisionPoints(0)));
-                    Platform.runLater(() -> traceLog.add(currentState.get()));
+                    applyStep(value);
                 }
                 
                 @Override
                 public void onError(Throwable t) {
-                    Ecdar.showToast("Could not start simulation:\n" + t.getMessage());
-                    
-                    // Release backend connection
-                    backendDriver.addBackendConnection(backendConnection);
-                    connections.remove(backendConnection);
+                    Ecdar.showToast("Could not start simulation:\n" + describeError(t, deadline, backendConnection));
+                    releaseConnection(backendConnection);
                 }
 
                 @Override
                 public void onCompleted() {
-                    // Release backend connection
-                    backendDriver.addBackendConnection(backendConnection);
-                    connections.remove(backendConnection);
+                    backendDriver.getDeadlinePolicy().recordSimulationLatency(backendConnection.getBackendInstance(), System.currentTimeMillis() - startTime);
+                    releaseConnection(backendConnection);
                 }
             };
 
-            var comInfo = ComponentProtos.ComponentsInfo.newBuilder();
-            for (Component c : Ecdar.getProject().getComponents()) {
-                comInfo.addComponents(ComponentProtos.Component.newBuilder().setJson(c.serialize().toString()).build());
-            }
-            comInfo.setComponentsHash(comInfo.getComponentsList().hashCode());
             var simStartRequest = QueryProtos.SimulationStartRequest.newBuilder();
             var simInfo = QueryProtos.SimulationInfo.newBuilder()
-                    .setComponentComposition(composition)
-                    .setComponentsInfo(comInfo);
-            simStartRequest.setSimulationInfo(simInfo);
-            backendConnection.getStub().withDeadlineAfter(this.backendDriver.getResponseDeadline(), TimeUnit.MILLISECONDS)
-                    .startSimulation(simStartRequest.build(), responseObserver);
-        }, BackendHelper.getDefaultBackendInstance());
+                    .setComponentComposition(composition);
+            backendConnection.sendWithComponents(comInfo,
+                    (componentsInfo, observer) -> backendConnection.getStub()
+                            .withDeadlineAfter(deadline.getMillis(), TimeUnit.MILLISECONDS)
+                            .startSimulation(simStartRequest.setSimulationInfo(simInfo.setComponentsInfo(componentsInfo)).build(), observer),
+                    response -> false,
+                    responseObserver);
+        });
         
         backendDriver.addRequestToExecutionQueue(request);
         
@@ -145,82 +185,279 @@ public class SimulationHandler {
     public void nextStep() {
         // removes invalid states from the log when stepping forward after previewing a previous state
         removeStatesFromLog(currentState.get()); 
+
+        var comInfo = BackendHelper.getComponentsInfoBuilder(Ecdar.getProject().getComponents());
+        var decision = getDecision(selectedEdge.get(), currentState.get());
+        var stepKey = new SimulationStepMemo.Key(decision, composition, BackendHelper.getComponentsContentHash(Ecdar.getProject().getComponents()));
+
+        // A running prefetch of the step is awaited instead of asking the engine again, while a queued one is cancelled,
+        // as the step is requested with a higher priority instead. The prefetches of the other successors are no longer
+        // needed, and must not hold connections needed by the step.
+        final Prefetch prefetch = prefetches.remove(stepKey);
+        if (prefetch != null && !prefetch.isStarted()) prefetch.context.cancel(null);
+        cancelPrefetches();
+
+        if (prefetch != null && prefetch.takeOver()) {
+            prefetchHits.incrementAndGet();
+            numberOfSteps++;
+            updateAllValues();
+            return;
+        }
+
+        // The step has already been taken from this state, if the user is stepping forward after previewing it
+        // or if it has been prefetched
+        var memoizedStep = stepMemo.get(stepKey);
+        if (memoizedStep != null) {
+            if (prefetchedSteps.remove(stepKey)) prefetchHits.incrementAndGet();
+            applyStep(memoizedStep);
+            numberOfSteps++;
+            updateAllValues();
+            return;
+        }
+        if (prefetchEnabled.get()) prefetchMisses.incrementAndGet();
+
+        requestStep(stepKey, decision, comInfo);
+
+        // increments the number of steps taken during this simulation
+        numberOfSteps++;
+        
         
-        GrpcRequest request = new GrpcRequest(backendConnection -> {
+        updateAllValues();
+    }
+
+    /**
+     * Asks the engine for a simulation step with an interactive priority, memoizes the response and moves
+     * the simulation to the state reached
+     *
+     * @param stepKey  the key to memoize the response with
+     * @param decision the decision to take
+     * @param comInfo  the components of the simulation
+     */
+    private void requestStep(SimulationStepMemo.Key stepKey, Decision decision, ComponentProtos.ComponentsInfo.Builder comInfo) {
+        GrpcRequest request = newRequest(backendConnection -> {
+            final DeadlinePolicy.ResponseDeadline deadline = backendDriver.getDeadlinePolicy().getSimulationDeadline(backendConnection.getBackendInstance());
+            final long startTime = System.currentTimeMillis();
+
             StreamObserver<SimulationStepResponse> responseObserver = new StreamObserver<>() {
                 @Override
                 public void onNext(QueryProtos.SimulationStepResponse value) {
-                    // TODO this is temp solution to compile but should be fixed to handle ambiguity
-                    currentState.set(new SimulationState(value.getNewDecisionPoints(0)));
-                    Platform.runLater(() -> traceLog.add(currentState.get()));
+                    stepMemo.put(stepKey, value);
+                    applyStep(value);
                 }
                 
                 @Override
                 public void onError(Throwable t) {
-                    Ecdar.showToast("Could not take next step in simulation\nError: " + t.getMessage());
-                    
-                    // Release backend connection
-                    backendDriver.addBackendConnection(backendConnection);
-                    connections.remove(backendConnection);
+                    Ecdar.showToast("Could not take next step in simulation\nError: " + describeError(t, deadline, backendConnection));
+                    releaseConnection(backendConnection);
                 }
                 
                 @Override
                 public void onCompleted() {
-                    // Release backend connection
-                    backendDriver.addBackendConnection(backendConnection);
-                    connections.remove(backendConnection);
+                    backendDriver.getDeadlinePolicy().recordSimulationLatency(backendConnection.getBackendInstance(), System.currentTimeMillis() - startTime);
+                    releaseConnection(backendConnection);
                 }
             };
-            
-            var comInfo = ComponentProtos.ComponentsInfo.newBuilder();
-            for (Component c : Ecdar.getProject().getComponents()) {
-                comInfo.addComponents(ComponentProtos.Component.newBuilder().setJson(c.serialize().toString()).build());
-            }
-            comInfo.setComponentsHash(comInfo.getComponentsList().hashCode());
-            var simStepRequest = SimulationStepRequest.newBuilder();
-            var simInfo = SimulationInfo.newBuilder()
-                    .setComponentComposition(composition)
-                    .setComponentsInfo(comInfo);
-            simStepRequest.setSimulationInfo(simInfo);
-            var source = currentState.get().getState();
-            var specComp = ObjectProtos.SpecificComponent.newBuilder().setComponentName(getComponentName(selectedEdge.get())).setComponentIndex(getComponentIndex(selectedEdge.get()));
-            var edge = EcdarProtoBuf.ObjectProtos.Edge.newBuilder().setId(selectedEdge.get().getId()).setSpecificComponent(specComp);
-            var decision = Decision.newBuilder().setEdge(edge).setSource(source);
-            simStepRequest.setChosenDecision(decision);
-
-            backendConnection.getStub().withDeadlineAfter(this.backendDriver.getResponseDeadline(), TimeUnit.MILLISECONDS)
-                    .takeSimulationStep(simStepRequest.build(), responseObserver);
-        }, BackendHelper.getDefaultBackendInstance());
+
+            sendStep(backendConnection, decision, comInfo, deadline, responseObserver);
+        });
         
         backendDriver.addRequestToExecutionQueue(request);
-        
-        
-        // increments the number of steps taken during this simulation
-        numberOfSteps++;
-        
-        
-        updateAllValues();
     }
 
-    private String getComponentName(Edge edge) {
-        var components = Ecdar.getProject().getComponents();
-        for (var component : components) {
-            for (var e : component.getEdges()) {
-                if (e.getId().equals(edge.getId())) {
-                    return component.getName();
+    /**
+     * Sends the request of a simulation step on the connection
+     *
+     * @param backendConnection the connection to send the request on
+     * @param decision          the decision to take
+     * @param comInfo           the components of the simulation
+     * @param deadline          the deadline of the request
+     * @param responseObserver  the observer of the response
+     */
+    private void sendStep(BackendConnection backendConnection, Decision decision, ComponentProtos.ComponentsInfo.Builder comInfo,
+                          DeadlinePolicy.ResponseDeadline deadline, StreamObserver<SimulationStepResponse> responseObserver) {
+        var simStepRequest = SimulationStepRequest.newBuilder();
+        var simInfo = SimulationInfo.newBuilder()
+                .setComponentComposition(composition);
+        simStepRequest.setChosenDecision(decision);
+
+        // Only the hash of the components is sent, once they have been uploaded on the connection
+        backendConnection.sendWithComponents(comInfo,
+                (componentsInfo, observer) -> backendConnection.getStub()
+                        .withDeadlineAfter(deadline.getMillis(), TimeUnit.MILLISECONDS)
+                        .takeSimulationStep(simStepRequest.setSimulationInfo(simInfo.setComponentsInfo(componentsInfo)).build(), observer),
+                response -> false,
+                responseObserver);
+    }
+
+    /**
+     * Moves the simulation to the state reached by a step, and adds it to the trace log
+     *
+     * @param value the response of the step
+     */
+    private void applyStep(SimulationStepResponse value) {
+        // TODO this is temp solution to compile but should be fixed to handle ambiguity
+        final SimulationState state = new SimulationState(value.getNewDecisionPoints(0));
+        currentState.set(state);
+        modelExecutor.execute(() -> {
+            traceLog.add(state);
+            prefetchSuccessors(state);
+        });
+    }
+
+    /**
+     * Takes the steps along the first enabled edges of the state in the background, with a low priority,
+     * and memoizes the responses, such that taking one of them is answered without waiting for the engine.
+     * When the next step is taken, a running prefetch of it is taken over and the other prefetches are cancelled.
+     *
+     * @param state the state to prefetch the successors of
+     */
+    private void prefetchSuccessors(SimulationState state) {
+        if (!prefetchEnabled.get() || state != currentState.get()) return;
+        cancelPrefetches();
+
+        var comInfo = BackendHelper.getComponentsInfoBuilder(Ecdar.getProject().getComponents());
+        var componentsHash = BackendHelper.getComponentsContentHash(Ecdar.getProject().getComponents());
+        var enabledEdges = state.getEnabledEdges();
+        for (int i = 0; i < Math.min(PREFETCH_COUNT, enabledEdges.size()); i++) {
+            final ModelIndex.Entry<Edge> edge = Ecdar.getProject().getModelIndex().getEdge(enabledEdges.get(i).getValue());
+            if (edge == null) continue;
+
+            final Decision decision = getDecision(edge.getElement(), state);
+            final SimulationStepMemo.Key stepKey = new SimulationStepMemo.Key(decision, composition, componentsHash);
+            if (stepMemo.contains(stepKey) || prefetches.containsKey(stepKey)) continue;
+
+            final Prefetch prefetch = new Prefetch(stepKey);
+            prefetches.put(stepKey, prefetch);
+            GrpcRequest request = newRequest(backendConnection -> {
+                final DeadlinePolicy.ResponseDeadline deadline = backendDriver.getDeadlinePolicy().getSimulationDeadline(backendConnection.getBackendInstance());
+                prefetch.start();
+
+                sendStep(backendConnection, decision, comInfo, deadline, new StreamObserver<>() {
+                    @Override
+                    public void onNext(SimulationStepResponse value) {
+                        prefetch.complete(value);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        // Failed and cancelled prefetches are not reported, the step is requested again if it is taken
+                        releaseConnection(backendConnection);
+                        if (prefetch.fail() && Status.fromThrowable(t).getCode() != Status.Code.CANCELLED) {
+                            requestStep(stepKey, decision, comInfo);
+                        }
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        releaseConnection(backendConnection);
+                    }
+                });
+            }, prefetch.context, GrpcRequest.Priority.BACKGROUND);
+
+            backendDriver.addRequestToExecutionQueue(request);
+        }
+    }
+
+    /**
+     * Cancels the prefetches of the successors of the current state, both queued and running
+     */
+    private void cancelPrefetches() {
+        // The queued prefetches are cancelled first, such that a connection released by a cancelled running prefetch
+        // is not leased for one of them
+        for (Prefetch prefetch : prefetches.values()) {
+            if (!prefetch.isStarted()) prefetch.context.cancel(null);
+        }
+        for (Prefetch prefetch : prefetches.values()) {
+            prefetch.context.cancel(null);
+        }
+        prefetches.clear();
+    }
+
+    /**
+     * The prefetch of a successor of the current state, which is taken over if the step is taken while it is running
+     */
+    private final class Prefetch {
+        private final SimulationStepMemo.Key stepKey;
+        private final Context.CancellableContext context = simulationContext.withCancellation();
+        private boolean started = false;
+        private boolean failed = false;
+        private boolean takenOver = false;
+        private SimulationStepResponse response;
+
+        private Prefetch(SimulationStepMemo.Key stepKey) {
+            this.stepKey = stepKey;
+        }
+
+        private synchronized void start() {
+            started = true;
+        }
+
+        private synchronized boolean isStarted() {
+            return started;
+        }
+
+        /**
+         * Moves the simulation to the successor, at once if the prefetch has completed and otherwise when it completes.
+         * A prefetch that is still queued is not taken over, as the step is requested with a higher priority instead.
+         *
+         * @return whether the prefetch has been taken over
+         */
+        private boolean takeOver() {
+            synchronized (this) {
+                if (response == null) {
+                    if (!started || failed) return false;
+
+                    takenOver = true;
+                    return true;
                 }
             }
+            prefetchedSteps.remove(stepKey);
+            applyStep(response);
+            return true;
         }
-        throw new RuntimeException("Could not find component name for edge with id " + edge.getId());
-    }
 
-    private int getComponentIndex (Edge edge) {
-        for (int i = 0; i < Ecdar.getProject().getComponents().size(); i++) {
-            if (Ecdar.getProject().getComponents().get(i).getEdges().stream().anyMatch(p -> p.getId() == edge.getId())) {
-                return i;
+        private void complete(SimulationStepResponse value) {
+            synchronized (this) {
+                response = value;
+                stepMemo.put(stepKey, value);
+                if (!takenOver) {
+                    prefetchedSteps.add(stepKey);
+                    return;
+                }
             }
-        };
-        throw new IllegalArgumentException("Edge does not belong to any component");
+            applyStep(value);
+        }
+
+        /**
+         * @return whether the prefetch had been taken over, such that the step must be requested again
+         */
+        private synchronized boolean fail() {
+            failed = true;
+            return takenOver && response == null;
+        }
+    }
+
+    private void releaseConnection(BackendConnection backendConnection) {
+        backendDriver.addBackendConnection(backendConnection);
+        connections.remove(backendConnection);
+    }
+
+    /**
+     * Creates the decision of taking an edge from a state
+     *
+     * @param edge  the edge to take
+     * @param state the state to take the edge from
+     * @return the decision
+     */
+    private Decision getDecision(Edge edge, SimulationState state) {
+        var indexedEdge = Ecdar.getProject().getModelIndex().getEdge(edge.getId());
+        if (indexedEdge == null) {
+            throw new IllegalArgumentException("Edge does not belong to any component");
+        }
+
+        var specComp = ObjectProtos.SpecificComponent.newBuilder().setComponentName(indexedEdge.getComponent().getName()).setComponentIndex(indexedEdge.getComponentIndex());
+        var protoEdge = EcdarProtoBuf.ObjectProtos.Edge.newBuilder().setId(edge.getId()).setSpecificComponent(specComp);
+        return Decision.newBuilder().setEdge(protoEdge).setSource(state.getState()).build();
     }
     
     
@@ -338,6 +575,96 @@ public class SimulationHandler {
         return false; // ToDo: Implement
     }
 
+    /**
+     * Runs a batch simulation of the current composition, taking the steps without updating the simulator
+     *
+     * @param steps     the number of steps to take
+     * @param policy    chooses the edge to take in each state
+     * @param traceFile the file to stream the trace to
+     * @return the report of the simulation, completed when all steps have been taken
+     */
+    public CompletableFuture<BatchSimulation.Report> runBatchSimulation(int steps, BatchSimulation.Policy policy, Path traceFile) {
+        return new BatchSimulation(backendDriver, composition, steps, policy, traceFile).start();
+    }
+
+    /**
+     * Whether the successors of each state are prefetched in the background
+     *
+     * @return the property
+     */
+    public BooleanProperty prefetchEnabledProperty() {
+        return prefetchEnabled;
+    }
+
+    /**
+     * @return the number of steps taken that were answered by a prefetch
+     */
+    public long getPrefetchHits() {
+        return prefetchHits.get();
+    }
+
+    /**
+     * @return the number of steps taken with prefetching enabled that had to wait for the engine
+     */
+    public long getPrefetchMisses() {
+        return prefetchMisses.get();
+    }
+
+    /**
+     * Describes the error of a simulation request. A timed out request is recorded with its deadline as latency,
+     * such that the deadline of the next simulation step grows.
+     *
+     * @param t                 the error
+     * @param deadline          the deadline of the request
+     * @param backendConnection the connection the request was executed on
+     * @return the description shown to the user
+     */
+    private String describeError(Throwable t, DeadlinePolicy.ResponseDeadline deadline, BackendConnection backendConnection) {
+        if (Status.fromThrowable(t).getCode() != Status.Code.DEADLINE_EXCEEDED) return t.getMessage();
+
+        backendDriver.getDeadlinePolicy().recordSimulationLatency(backendConnection.getBackendInstance(), deadline.getMillis());
+        return deadline.describeTimeout();
+    }
+
+    /**
+     * Cancels the requests of the simulation, both queued and running, such that the engine and the connections
+     * are freed when the simulator is closed
+     */
+    public void cancelRequests() {
+        simulationContext.cancel(null);
+        simulationContext = Context.ROOT.withCancellation();
+    }
+
+    /**
+     * Creates an interactive request to the default backend, which is cancelled by {@link #cancelRequests()}
+     *
+     * @param request the calls to execute on a connection to the backend
+     * @return the request
+     */
+    private GrpcRequest newRequest(Consumer<BackendConnection> request) {
+        return newRequest(request, simulationContext, GrpcRequest.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Creates a request to the default backend, which is cancelled when the given context is cancelled
+     *
+     * @param request  the calls to execute on a connection to the backend
+     * @param context  the context to bind the request to
+     * @param priority the priority of the request
+     * @return the request
+     */
+    private GrpcRequest newRequest(Consumer<BackendConnection> request, Context context, GrpcRequest.Priority priority) {
+        final Context previous = context.attach();
+        try {
+            return new GrpcRequest(backendConnection -> {
+                connections.add(backendConnection); // Save reference for closing connection on exit
+                request.accept(backendConnection);
+            }, BackendHelper.getDefaultBackendInstance(), priority);
+        } finally {
+            context.detach(previous);
+        }
+    }
+
     /**
      * Close all open backend connection and kill all locally running processes
      *
@@ -379,6 +706,7 @@ public class SimulationHandler {
      */
     public void setSimulationComponents(ArrayList<Component> components){
         simulationComponents = components;
+        simulationComponentsIndex = new ModelIndex(FXCollections.observableArrayList(components));
     }
 
     /**
@@ -399,13 +727,10 @@ public class SimulationHandler {
             }
         }
         //highlight the edges from the reachability response
-        for(var comp : simulationComponents){
-            for(var edge : comp.getEdges()){
-                for(var id : ids){
-                    if(edge.getId().equals(id)){
-                        edge.setIsHighlightedForReachability(true);
-                    }
-                }
+        for(var id : ids){
+            var edge = simulationComponentsIndex.getEdge(id);
+            if(edge != null){
+                edge.getElement().setIsHighlightedForReachability(true);
             }
         }
     }
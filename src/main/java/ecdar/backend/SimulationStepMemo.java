@@ -0,0 +1,139 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ObjectProtos;
+import EcdarProtoBuf.QueryProtos;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Memo of the simulation steps computed by the engine during a simulation session, keyed by the decision taken,
+ * which is the source state and the chosen edge, and the content of the components it is taken on.
+ * Stepping forward again after previewing an earlier state of the trace is answered from the memo, instead of
+ * asking the engine for a successor it has already computed.
+ * The least recently used steps are evicted when either the number of steps or their total size exceeds its cap.
+ */
+class SimulationStepMemo {
+    private final LinkedHashMap<Key, QueryProtos.SimulationStepResponse> steps = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxSizeInBytes;
+    private long sizeInBytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    SimulationStepMemo(int maxEntries, long maxSizeInBytes) {
+        this.maxEntries = maxEntries;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    /**
+     * Get the memoized response to a step
+     *
+     * @param key the key of the step
+     * @return the memoized response or null, if the step has not been taken in this session
+     */
+    synchronized QueryProtos.SimulationStepResponse get(Key key) {
+        final QueryProtos.SimulationStepResponse response = steps.get(key);
+        if (response == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return response;
+    }
+
+    /**
+     * Whether the response to a step is memoized, without counting it as a hit or miss
+     *
+     * @param key the key of the step
+     * @return true if the step has been taken in this session
+     */
+    synchronized boolean contains(Key key) {
+        return steps.containsKey(key);
+    }
+
+    /**
+     * Memoize the response to a step
+     *
+     * @param key      the key of the step
+     * @param response the response from the engine
+     */
+    synchronized void put(Key key, QueryProtos.SimulationStepResponse response) {
+        final QueryProtos.SimulationStepResponse previous = steps.put(key, response);
+        if (previous != null) sizeInBytes -= getSize(key, previous);
+        sizeInBytes += getSize(key, response);
+
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Forget all steps, as a new simulation session is started
+     */
+    synchronized void clear() {
+        steps.clear();
+        sizeInBytes = 0;
+    }
+
+    synchronized int size() {
+        return steps.size();
+    }
+
+    synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    private static long getSize(Key key, QueryProtos.SimulationStepResponse response) {
+        return key.decision.getSerializedSize() + response.getSerializedSize();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        final Iterator<Map.Entry<Key, QueryProtos.SimulationStepResponse>> iterator = steps.entrySet().iterator();
+        while ((steps.size() > maxEntries || sizeInBytes > maxSizeInBytes) && iterator.hasNext()) {
+            final Map.Entry<Key, QueryProtos.SimulationStepResponse> entry = iterator.next();
+            sizeInBytes -= getSize(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Identifies a simulation step by the decision taken, the composition simulated, and the content hash of the
+     * components the composition is made of
+     */
+    static final class Key {
+        private final ObjectProtos.Decision decision;
+        private final String composition;
+        private final String componentsHash;
+
+        Key(ObjectProtos.Decision decision, String composition, String componentsHash) {
+            this.decision = decision;
+            this.composition = composition;
+            this.componentsHash = componentsHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            final Key key = (Key) o;
+            return decision.equals(key.decision)
+                    && Objects.equals(composition, key.composition)
+                    && componentsHash.equals(key.componentsHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(decision, composition, componentsHash);
+        }
+    }
+}
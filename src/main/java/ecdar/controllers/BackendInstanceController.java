@@ -44,6 +44,8 @@ public class BackendInstanceController implements Initializable {
     public Label portRangeStartIssue;
     public Label portRangeEndIssue;
     public Label portRangeIssue;
+    public Label warmPoolSizeIssue;
+    public Label maxCallsPerConnectionIssue;
 
     /* Input fields */
     public JFXTextField backendName;
@@ -51,11 +53,18 @@ public class BackendInstanceController implements Initializable {
     public JFXTextField pathToBackend;
     public JFXTextField portRangeStart;
     public JFXTextField portRangeEnd;
+    public JFXTextField warmPoolSize;
+    public JFXTextField maxCallsPerConnection;
     public RadioButton defaultBackendRadioButton;
     public JFXCheckBox threadSafeBackendCheckBox;
+    public JFXCheckBox compressMessagesCheckBox;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        // Only thread safe backends run more than one call per connection
+        maxCallsPerConnection.setText(String.valueOf(backendInstance.getMaxCallsPerConnection()));
+        maxCallsPerConnection.disableProperty().bind(threadSafeBackendCheckBox.selectedProperty().not());
+
         Platform.runLater(() -> {
             this.handleLocalPropertyChanged();
             moveBackendInstanceUpRippler.setCursor(Cursor.HAND);
@@ -96,6 +105,7 @@ public class BackendInstanceController implements Initializable {
         this.isLocal.setSelected(instance.isLocal());
         this.defaultBackendRadioButton.setSelected(instance.isDefault());
         this.threadSafeBackendCheckBox.setSelected(instance.isThreadSafe());
+        this.compressMessagesCheckBox.setSelected(instance.isCompressMessages());
 
         // Check if the path or the address should be used
         if (isLocal.isSelected()) {
@@ -106,6 +116,8 @@ public class BackendInstanceController implements Initializable {
 
         this.portRangeStart.setText(String.valueOf(instance.getPortStart()));
         this.portRangeEnd.setText(String.valueOf(instance.getPortEnd()));
+        this.warmPoolSize.setText(String.valueOf(instance.getWarmPoolSize()));
+        this.maxCallsPerConnection.setText(String.valueOf(instance.getMaxCallsPerConnection()));
     }
 
     /**
@@ -117,9 +129,12 @@ public class BackendInstanceController implements Initializable {
         backendInstance.setLocal(isLocal.isSelected());
         backendInstance.setDefault(defaultBackendRadioButton.isSelected());
         backendInstance.setIsThreadSafe(threadSafeBackendCheckBox.isSelected());
+        backendInstance.setCompressMessages(compressMessagesCheckBox.isSelected());
         backendInstance.setBackendLocation(isLocal.isSelected() ? pathToBackend.getText() : address.getText());
         backendInstance.setPortStart(Integer.parseInt(portRangeStart.getText()));
         backendInstance.setPortEnd(Integer.parseInt(portRangeEnd.getText()));
+        backendInstance.setWarmPoolSize(Integer.parseInt(warmPoolSize.getText()));
+        backendInstance.setMaxCallsPerConnection(Integer.parseInt(maxCallsPerConnection.getText()));
 
         return backendInstance;
     }
@@ -0,0 +1,151 @@
+package ecdar.controllers;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.jfoenix.controls.JFXButton;
+import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
+import ecdar.backend.BackendDriver;
+import ecdar.backend.BackendStatistics;
+import ecdar.backend.LatencyHistogram;
+import ecdar.backend.SimulationHandler;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URL;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Shows the latency histograms, queue depth and connection pool utilization of each backend in the debug stage,
+ * together with how many simulation steps were answered by prefetches.
+ * The metrics are refreshed every second while the panel is shown.
+ */
+public class BackendMetricsController implements Initializable {
+    private static final String[] COLUMNS = {"Stage", "Type", "Count", "p50", "p90", "p99", "Max"};
+
+    public JFXButton exportButton;
+    public VBox metricsContainer;
+
+    private final Timeline refreshTimeline = new Timeline(new KeyFrame(Duration.seconds(1), event -> refresh()));
+
+    @Override
+    public void initialize(final URL location, final ResourceBundle resources) {
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+        refreshTimeline.play();
+        refresh();
+    }
+
+    /**
+     * Stop refreshing the metrics, e.g. when the debug stage is closed
+     */
+    public void stopRefreshing() {
+        refreshTimeline.stop();
+    }
+
+    private void refresh() {
+        final BackendDriver backendDriver = Ecdar.getBackendDriver();
+        if (backendDriver == null) return;
+
+        metricsContainer.getChildren().clear();
+        for (BackendInstance backend : backendDriver.getObservedBackends()) {
+            final Label name = new Label(backend.getName());
+            name.getStyleClass().add("subhead");
+
+            final BackendStatistics statistics = backendDriver.getStatistics(backend);
+            final Label gauges = new Label("Queue depth: " + backendDriver.getQueueDepth(backend)
+                    + ", connections busy/open/capacity: " + backendDriver.getBusyConnections(backend)
+                    + "/" + backendDriver.getOpenConnections(backend)
+                    + "/" + backendDriver.getConnectionCapacity(backend)
+                    + ", active calls: " + backendDriver.getActiveCalls(backend)
+                    + ", kB sent/uncompressed: " + statistics.getBytesSent() / 1024
+                    + "/" + statistics.getUncompressedBytesSent() / 1024);
+            gauges.getStyleClass().add("body1");
+
+            metricsContainer.getChildren().addAll(name, gauges, createHistogramTable(statistics));
+        }
+
+        final SimulationHandler simulationHandler = Ecdar.getSimulationHandler();
+        if (simulationHandler != null) {
+            final Label prefetches = new Label("Simulation steps prefetched/requested: " + simulationHandler.getPrefetchHits()
+                    + "/" + simulationHandler.getPrefetchMisses());
+            prefetches.getStyleClass().add("body1");
+            metricsContainer.getChildren().add(prefetches);
+        }
+    }
+
+    private GridPane createHistogramTable(BackendStatistics statistics) {
+        final GridPane table = new GridPane();
+        table.setHgap(12);
+
+        for (int column = 0; column < COLUMNS.length; column++) {
+            table.add(createCell(COLUMNS[column], "body2"), column, 0);
+        }
+
+        int row = 1;
+        for (Map.Entry<BackendStatistics.Stage, Map<String, LatencyHistogram>> stage : statistics.getHistograms().entrySet()) {
+            for (Map.Entry<String, LatencyHistogram> type : stage.getValue().entrySet()) {
+                final LatencyHistogram histogram = type.getValue();
+                table.addRow(row++,
+                        createCell(stage.getKey().toString(), "body1"),
+                        createCell(type.getKey(), "body1"),
+                        createCell(String.valueOf(histogram.getCount()), "body1-mono"),
+                        createCell(formatMillis(histogram.getPercentileMillis(50)), "body1-mono"),
+                        createCell(formatMillis(histogram.getPercentileMillis(90)), "body1-mono"),
+                        createCell(formatMillis(histogram.getPercentileMillis(99)), "body1-mono"),
+                        createCell(formatMillis(histogram.getMaxMillis()), "body1-mono"));
+            }
+        }
+
+        return table;
+    }
+
+    private static Label createCell(String text, String styleClass) {
+        final Label cell = new Label(text);
+        cell.getStyleClass().add(styleClass);
+        return cell;
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format("%.1f ms", millis);
+    }
+
+    /**
+     * Exports the metrics of all backends to a JSON file picked by the user
+     */
+    public void onExportButtonPressed() {
+        final FileChooser filePicker = new FileChooser();
+        filePicker.setTitle("Export backend metrics");
+        filePicker.setInitialFileName("backend-metrics.json");
+        filePicker.setInitialDirectory(new File(System.getProperty("user.home")));
+        filePicker.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON", "*.json"));
+
+        final File file = filePicker.showSaveDialog(exportButton.getScene().getWindow());
+        if (file == null) return;
+
+        final JsonObject metrics = Ecdar.getBackendDriver().exportMetrics();
+        final SimulationHandler simulationHandler = Ecdar.getSimulationHandler();
+        if (simulationHandler != null) {
+            metrics.addProperty("simulationPrefetchHits", simulationHandler.getPrefetchHits());
+            metrics.addProperty("simulationPrefetchMisses", simulationHandler.getPrefetchMisses());
+        }
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(metrics, writer);
+        } catch (IOException e) {
+            Ecdar.showToast("The backend metrics could not be exported: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
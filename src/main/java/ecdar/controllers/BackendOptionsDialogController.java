@@ -186,6 +186,7 @@ public class BackendOptionsDialogController implements Initializable {
         reveaal.setPortEnd(5040);
         reveaal.lockInstance();
         reveaal.setIsThreadSafe(true);
+        reveaal.setWarmPoolSize(1);
 
         // Load correct Reveaal executable based on OS
         List<String> potentialFilesForReveaal = new ArrayList<>();
@@ -205,6 +206,7 @@ public class BackendOptionsDialogController implements Initializable {
         jEcdar.setPortEnd(5050);
         jEcdar.lockInstance();
         jEcdar.setIsThreadSafe(false);
+        jEcdar.setWarmPoolSize(2);
 
         // Load correct j-Ecdar executable based on OS
         List<String> potentialFiledForJEcdar = new ArrayList<>();
@@ -304,6 +306,8 @@ public class BackendOptionsDialogController implements Initializable {
                 BackendInstanceController backendInstanceController = ((BackendInstancePresentation) child).getController();
                 error = backendNameIsErrorFree(backendInstanceController) && error;
                 error = portRangeIsErrorFree(backendInstanceController) && error;
+                error = warmPoolSizeIsErrorFree(backendInstanceController) && error;
+                error = maxCallsPerConnectionIsErrorFree(backendInstanceController) && error;
                 error = backendInstanceLocationIsErrorFree(backendInstanceController) && error;
             }
         }
@@ -378,6 +382,40 @@ public class BackendOptionsDialogController implements Initializable {
         return errorFree;
     }
 
+    private boolean warmPoolSizeIsErrorFree(BackendInstanceController backendInstanceController) {
+        try {
+            if (Integer.parseInt(backendInstanceController.warmPoolSize.getText()) < 0) {
+                backendInstanceController.warmPoolSizeIssue.setText(ValidationErrorMessages.VALUE_NEGATIVE.toString());
+                backendInstanceController.warmPoolSizeIssue.setVisible(true);
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            backendInstanceController.warmPoolSizeIssue.setText(ValidationErrorMessages.VALUE_NOT_INTEGER.toString());
+            backendInstanceController.warmPoolSizeIssue.setVisible(true);
+            return false;
+        }
+
+        backendInstanceController.warmPoolSizeIssue.setVisible(false);
+        return true;
+    }
+
+    private boolean maxCallsPerConnectionIsErrorFree(BackendInstanceController backendInstanceController) {
+        try {
+            if (Integer.parseInt(backendInstanceController.maxCallsPerConnection.getText()) < 1) {
+                backendInstanceController.maxCallsPerConnectionIssue.setText(ValidationErrorMessages.VALUE_NOT_POSITIVE.toString());
+                backendInstanceController.maxCallsPerConnectionIssue.setVisible(true);
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            backendInstanceController.maxCallsPerConnectionIssue.setText(ValidationErrorMessages.VALUE_NOT_INTEGER.toString());
+            backendInstanceController.maxCallsPerConnectionIssue.setVisible(true);
+            return false;
+        }
+
+        backendInstanceController.maxCallsPerConnectionIssue.setVisible(false);
+        return true;
+    }
+
     private boolean backendInstanceLocationIsErrorFree(BackendInstanceController backendInstanceController) {
         boolean errorFree = true;
 
@@ -435,6 +473,18 @@ public class BackendOptionsDialogController implements Initializable {
                 return "Value must be integer";
             }
         },
+        VALUE_NEGATIVE {
+            @Override
+            public String toString() {
+                return "Value cannot be negative";
+            }
+        },
+        VALUE_NOT_POSITIVE {
+            @Override
+            public String toString() {
+                return "Value must be at least 1";
+            }
+        },
         PORT_RANGE_MUST_BE_INCREMENTAL {
             @Override
             public String toString() {
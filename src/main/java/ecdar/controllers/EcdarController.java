@@ -6,6 +6,7 @@ import ecdar.Debug;
 import ecdar.Ecdar;
 import ecdar.abstractions.*;
 import ecdar.backend.BackendHelper;
+import ecdar.backend.BatchSimulation;
 import ecdar.backend.SimulationHandler;
 import ecdar.code_analysis.CodeAnalysis;
 import ecdar.mutation.models.MutationTestPlan;
@@ -101,6 +102,7 @@ public class EcdarController implements Initializable {
     public MenuItem menuBarViewCanvasSplit;
     public MenuItem menuBarViewEditor;
     public MenuItem menuBarViewSimulator;
+    public MenuItem menuBarViewBatchSimulation;
     public MenuItem menuBarFileCreateNewProject;
     public MenuItem menuBarFileOpenProject;
     public Menu menuBarFileRecentProjects;
@@ -111,6 +113,7 @@ public class EcdarController implements Initializable {
     public MenuItem menuBarFileExportAsPngNoBorder;
     public MenuItem menuBarOptionsCache;
     public MenuItem menuBarOptionsBackgroundQueries;
+    public MenuItem menuBarOptionsSimulationPrefetching;
     public MenuItem menuBarOptionsBackendOptions;
     public MenuItem menuBarHelpHelp;
     public MenuItem menuBarHelpAbout;
@@ -488,6 +491,14 @@ public class EcdarController implements Initializable {
 
         Ecdar.shouldRunBackgroundQueries.setValue(Ecdar.preferences.getBoolean("run_background_queries", true));
         menuBarOptionsBackgroundQueries.getGraphic().opacityProperty().bind(new When(Ecdar.shouldRunBackgroundQueries).then(1).otherwise(0));
+
+        menuBarOptionsSimulationPrefetching.setOnAction(event -> {
+            final BooleanProperty shouldPrefetchSimulationSteps = Ecdar.toggleSimulationStepPrefetching();
+            Ecdar.preferences.putBoolean("prefetch_simulation_steps", shouldPrefetchSimulationSteps.get());
+        });
+
+        Ecdar.shouldPrefetchSimulationSteps.setValue(Ecdar.preferences.getBoolean("prefetch_simulation_steps", false));
+        menuBarOptionsSimulationPrefetching.getGraphic().opacityProperty().bind(new When(Ecdar.shouldPrefetchSimulationSteps).then(1).otherwise(0));
     }
 
     private void initializeEditMenu() {
@@ -612,6 +623,8 @@ public class EcdarController implements Initializable {
         menuBarViewSimulator.setAccelerator(new KeyCodeCombination(KeyCode.DIGIT2, KeyCombination.SHORTCUT_DOWN));
         menuBarViewSimulator.setOnAction(event -> switchGuiView.setSelected(true));
 
+        menuBarViewBatchSimulation.setOnAction(event -> runBatchSimulation());
+
 
         // On startup, set the scaling to the values saved in preferences
         Platform.runLater(() -> {
@@ -905,6 +918,69 @@ public class EcdarController implements Initializable {
         });
     }
 
+    /**
+     * Runs a batch simulation of the composition of the simulator, asking the user for the number of steps,
+     * the policy choosing the steps and the file to write the trace to. The report is shown when it completes.
+     */
+    private void runBatchSimulation() {
+        if (simulationHandler.getComposition() == null) {
+            Ecdar.showToast("Please choose a query to simulate in the simulator before running a batch simulation");
+            return;
+        }
+
+        final TextInputDialog stepsDialog = new TextInputDialog("1000");
+        stepsDialog.setTitle("Batch simulation");
+        stepsDialog.setHeaderText("Simulate " + simulationHandler.getComposition());
+        stepsDialog.setContentText("Number of steps:");
+        final Optional<String> stepsInput = stepsDialog.showAndWait();
+        if (stepsInput.isEmpty()) return;
+
+        final int steps;
+        try {
+            steps = Integer.parseInt(stepsInput.get().trim());
+        } catch (NumberFormatException e) {
+            Ecdar.showToast("The number of steps must be a whole number");
+            return;
+        }
+        if (steps <= 0) {
+            Ecdar.showToast("The number of steps must be positive");
+            return;
+        }
+
+        final String uniformRandom = "Uniform random";
+        final String leastVisited = "Least visited edge";
+        final ChoiceDialog<String> policyDialog = new ChoiceDialog<>(uniformRandom, uniformRandom, leastVisited);
+        policyDialog.setTitle("Batch simulation");
+        policyDialog.setHeaderText("Simulate " + simulationHandler.getComposition());
+        policyDialog.setContentText("Choose the steps by:");
+        final Optional<String> policyInput = policyDialog.showAndWait();
+        if (policyInput.isEmpty()) return;
+
+        final long seed = System.nanoTime();
+        final BatchSimulation.Policy policy = policyInput.get().equals(leastVisited)
+                ? BatchSimulation.Policy.leastVisited(seed)
+                : BatchSimulation.Policy.uniformRandom(seed);
+
+        final FileChooser filePicker = new FileChooser();
+        filePicker.setTitle("Save batch simulation trace");
+        filePicker.setInitialFileName("batch-simulation.jsonl");
+        filePicker.setInitialDirectory(new File(System.getProperty("user.home")));
+        filePicker.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl"));
+
+        final File file = filePicker.showSaveDialog(root.getScene().getWindow());
+        if (file == null) return;
+
+        Ecdar.showToast("Running batch simulation of " + steps + " steps");
+        simulationHandler.runBatchSimulation(steps, policy, file.toPath()).whenComplete((report, throwable) -> {
+            if (throwable != null) {
+                Ecdar.showToast("The batch simulation failed: " + throwable.getMessage());
+                throwable.printStackTrace();
+            } else {
+                Ecdar.showToast("Batch simulation finished: " + report);
+            }
+        });
+    }
+
     /**
      * Changes the view and mode to the editor
      * Only enter if the mode is not already Editor
@@ -912,7 +988,7 @@ public class EcdarController implements Initializable {
     private void enterEditorMode() {
 //        ToDo NIELS: Consider implementing willShow and willHide to handle general elements that should only be available for one of the modes
 //        editorPresentation.getController().willShow();
-//        simulatorPresentation.getController().willHide();
+        if (borderPane.getCenter() == simulatorPresentation) simulatorPresentation.getController().willHide();
 
         borderPane.setCenter(editorPresentation);
         leftPane.getChildren().clear();
@@ -3,6 +3,7 @@ package ecdar.controllers;
 import ecdar.Ecdar;
 import ecdar.abstractions.Query;
 import ecdar.abstractions.QueryState;
+import ecdar.backend.GrpcRequest;
 import ecdar.presentations.QueryPresentation;
 import com.jfoenix.controls.JFXRippler;
 import ecdar.utility.colors.Color;
@@ -15,7 +16,9 @@ import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.*;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 
@@ -28,6 +31,7 @@ public class QueryPaneController implements Initializable {
     public ScrollPane scrollPane;
 
     public JFXRippler runAllQueriesButton;
+    public JFXRippler reverifyAffectedQueriesButton;
     public JFXRippler clearAllQueriesButton;
     public JFXRippler addButton;
 
@@ -74,11 +78,35 @@ public class QueryPaneController implements Initializable {
 
     @FXML
     private void runAllQueriesButtonClicked() {
+        final List<Query> queries = new ArrayList<>();
         Ecdar.getProject().getQueries().forEach(query -> {
             if (query.getType() == null) return;
             query.cancel();
-            Ecdar.getQueryExecutor().executeQuery(query);
+            queries.add(query);
         });
+
+        // The queries are executed in batches sharing the upload of their components
+        Ecdar.getQueryExecutor().executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+    }
+
+    @FXML
+    private void reverifyAffectedQueriesButtonClicked() {
+        final List<Query> queries = new ArrayList<>();
+        int skippedQueries = 0;
+        for (Query query : Ecdar.getProject().getQueries()) {
+            if (query.getType() == null) continue;
+
+            // Queries without changes in their query, components or systems since they were last executed are skipped
+            if (!Ecdar.getQueryDependencyGraph().isAffected(query)) {
+                skippedQueries++;
+                continue;
+            }
+            query.cancel();
+            queries.add(query);
+        }
+
+        Ecdar.getQueryExecutor().executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        Ecdar.showToast("Re-verifying " + queries.size() + " affected queries, skipped " + skippedQueries + " unaffected queries");
     }
 
     @FXML
@@ -4,6 +4,7 @@ import com.jfoenix.controls.JFXPopup;
 import ecdar.Ecdar;
 import ecdar.abstractions.*;
 import ecdar.backend.BackendHelper;
+import ecdar.backend.GrpcRequest;
 import ecdar.backend.SimulationHandler;
 import ecdar.presentations.DropDownMenu;
 import ecdar.presentations.SimLocationPresentation;
@@ -98,7 +99,7 @@ public class SimLocationController implements Initializable {
             query.setType(QueryType.REACHABILITY);
 
             // execute query
-            Ecdar.getQueryExecutor().executeQuery(query);
+            Ecdar.getQueryExecutor().executeQuery(query, GrpcRequest.Priority.INTERACTIVE);
 
             dropDownMenu.hide();
         });
@@ -115,7 +116,7 @@ public class SimLocationController implements Initializable {
             query.setType(QueryType.REACHABILITY);
 
             // execute query
-            Ecdar.getQueryExecutor().executeQuery(query);
+            Ecdar.getQueryExecutor().executeQuery(query, GrpcRequest.Priority.INTERACTIVE);
 
             dropDownMenu.hide();
         });
@@ -121,6 +121,9 @@ public class SimulatorController implements Initializable {
 
     public void willHide() {
         overviewPresentation.getController().removeProcessesFromGroup();
+
+        // Free the engine from steps that are no longer of interest
+        simulationHandler.cancelRequests();
     }
 
     public static DoubleProperty getWidthProperty() {
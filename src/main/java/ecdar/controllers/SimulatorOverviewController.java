@@ -55,6 +55,7 @@ public class SimulatorOverviewController implements Initializable {
     private static final int SUPER_SPECIAL_SCROLLPANE_OFFSET = 20;
 
     private final ObservableList<Component> componentArrayList = FXCollections.observableArrayList();
+    private final ModelIndex processIndex = new ModelIndex(componentArrayList);
     private final ObservableMap<String, ProcessPresentation> processPresentations = FXCollections.observableHashMap();
 
     /**
@@ -376,21 +377,16 @@ public class SimulatorOverviewController implements Initializable {
 
     public void highlightAvailableEdges(SimulationState state) {
         // unhighlight all edges
-        for (Pair<String,String> edge : state.getEnabledEdges()) {
-            processPresentations.values().stream()
-                    .forEach(p -> p.getController().getComponent().getEdges().stream()
-                            .forEach(e -> e.setIsHighlighted(false)));
-        }
+        processPresentations.values()
+                .forEach(p -> p.getController().getComponent().getEdges()
+                        .forEach(e -> e.setIsHighlighted(false)));
 
         // highlight available edges in the given state
         for (Pair<String,String> edge : state.getEnabledEdges()) {
-            processPresentations.values().stream()
-                    .forEach(p -> p.getController().getComponent().getEdges().stream()
-                        .forEach(e -> {
-                            if (e.getId().equals(edge.getValue())) {
-                                e.setIsHighlighted(true);
-                            }
-                        }));
+            final ModelIndex.Entry<Edge> indexedEdge = processIndex.getEdge(edge.getValue());
+            if (indexedEdge != null) {
+                indexedEdge.getElement().setIsHighlighted(true);
+            }
         }
     }
 }
@@ -0,0 +1,16 @@
+package ecdar.presentations;
+
+import ecdar.controllers.BackendMetricsController;
+import javafx.scene.layout.AnchorPane;
+
+public class BackendMetricsPresentation extends AnchorPane {
+    private final BackendMetricsController controller;
+
+    public BackendMetricsPresentation() {
+        controller = new EcdarFXMLLoader().loadAndGetController("BackendMetricsPresentation.fxml", this);
+    }
+
+    public BackendMetricsController getController() {
+        return controller;
+    }
+}
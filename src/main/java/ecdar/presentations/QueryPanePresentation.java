@@ -64,6 +64,10 @@ public class QueryPanePresentation extends StackPane {
         controller.runAllQueriesButton.setRipplerFill(color.getTextColor(colorIntensity));
         Tooltip.install(controller.runAllQueriesButton, new Tooltip("Run all queries"));
 
+        controller.reverifyAffectedQueriesButton.setMaskType(JFXRippler.RipplerMask.CIRCLE);
+        controller.reverifyAffectedQueriesButton.setRipplerFill(color.getTextColor(colorIntensity));
+        Tooltip.install(controller.reverifyAffectedQueriesButton, new Tooltip("Re-verify queries affected by changes"));
+
         controller.clearAllQueriesButton.setMaskType(JFXRippler.RipplerMask.CIRCLE);
         controller.clearAllQueriesButton.setRipplerFill(color.getTextColor(colorIntensity));
         Tooltip.install(controller.clearAllQueriesButton, new Tooltip("Clear all queries"));
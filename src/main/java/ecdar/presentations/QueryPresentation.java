@@ -24,6 +24,7 @@ import org.kordamp.ikonli.material.Material;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static javafx.scene.paint.Color.*;
@@ -108,6 +109,12 @@ public class QueryPresentation extends HBox {
                 dropDownMenu.hide();
             });
             dropDownMenu.addSpacerElement();
+            dropDownMenu.addListElement("Deadline");
+            addDeadlineListElement("Automatic", 0, dropDownMenu);
+            addDeadlineListElement("1 minute", TimeUnit.MINUTES.toMillis(1), dropDownMenu);
+            addDeadlineListElement("10 minutes", TimeUnit.MINUTES.toMillis(10), dropDownMenu);
+            addDeadlineListElement("1 hour", TimeUnit.HOURS.toMillis(1), dropDownMenu);
+            dropDownMenu.addSpacerElement();
             dropDownMenu.addClickableListElement("Clear Status", event -> {
                 // Clear the state
                 controller.getQuery().setQueryState(QueryState.UNKNOWN);
@@ -126,6 +133,21 @@ public class QueryPresentation extends HBox {
         });
     }
 
+    /**
+     * Adds an element to the dropdown menu for choosing the deadline of the query.
+     * The automatic deadline is derived from earlier executions of queries of the same type.
+     *
+     * @param name         the name of the element
+     * @param deadline     the deadline in milliseconds, or 0 for the automatic deadline
+     * @param dropDownMenu the dropdown menu to add the element to
+     */
+    private void addDeadlineListElement(final String name, final long deadline, final DropDownMenu dropDownMenu) {
+        dropDownMenu.addToggleableListElement(name, controller.getQuery().deadlineProperty().isEqualTo(deadline), event -> {
+            controller.getQuery().setDeadline(deadline);
+            dropDownMenu.hide();
+        });
+    }
+
     private void initializeActionButton() {
         Platform.runLater(() -> {
             // Find the action icon
@@ -199,7 +221,11 @@ public class QueryPresentation extends HBox {
                     this.tooltip.setText("This query was not a success: " + controller.getQuery().getCurrentErrors());
                 }
                 else if (queryState.getStatusCode() == 3) {
-                    this.tooltip.setText("The query has not been executed yet");
+                    if (controller.getQuery().isStoredResultStale()) {
+                        this.tooltip.setText("The components of the query have changed since its last result, execute it again to update the result");
+                    } else {
+                        this.tooltip.setText("The query has not been executed yet");
+                    }
                 } else {
                     this.tooltip.setText(controller.getQuery().getCurrentErrors());
                 }
@@ -231,6 +257,11 @@ public class QueryPresentation extends HBox {
                         setStatusIndicatorContentColor(Color.GREY.getColor(Color.Intensity.I700), statusIcon, queryTypeExpandIcon, null);
                     }
 
+                    // A query with an outdated result is shown as such, until it is executed again
+                    if (queryState.equals(QueryState.UNKNOWN) && controller.getQuery().isStoredResultStale()) {
+                        statusIcon.setIconLiteral("gmi-history");
+                    }
+
                     // The tooltip is updated here to handle all cases that are not syntax error
                     updateToolTip.accept(queryState);
                 });
@@ -241,6 +272,7 @@ public class QueryPresentation extends HBox {
 
             // Ensure that the color is updated when ever the query state is updated
             controller.getQuery().queryStateProperty().addListener((observable, oldValue, newValue) -> updateStateIndicator.accept(newValue));
+            controller.getQuery().storedResultStaleProperty().addListener((observable, oldValue, newValue) -> updateStateIndicator.accept(controller.getQuery().getQueryState()));
 
             // Ensure that the tooltip is updated when new errors are added
             controller.getQuery().errors().addListener((observable, oldValue, newValue) -> updateToolTip.accept(controller.getQuery().getQueryState()));
@@ -52,15 +52,11 @@ public class SimulationState {
     }
 
     private String getComponentName(String id) {
-        var components = Ecdar.getProject().getComponents();
-        for (var component : components) {
-            for (var edge : component.getEdges()) {
-                if (edge.getId().equals(id)) {
-                    return component.getName();
-                }
-            }
+        var edge = Ecdar.getProject().getModelIndex().getEdge(id);
+        if (edge == null) {
+            throw new RuntimeException("Could not find component name for edge with id " + id);
         }
-        throw new RuntimeException("Could not find component name for edge with id " + id);
+        return edge.getComponent().getName();
     }
 
      /**
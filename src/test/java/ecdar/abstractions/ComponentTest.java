@@ -387,4 +387,53 @@ public class ComponentTest {
         Assertions.assertEquals(1, vars.size());
         Assertions.assertEquals("sound", vars.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSerializationIsReusedUntilComponentChanges() {
+        final Component c = new Component(false);
+        final String json = c.getSerializedJson();
+
+        Assertions.assertSame(json, c.getSerializedJson());
+
+        c.setDeclarationsText("clock x;");
+
+        Assertions.assertNotSame(json, c.getSerializedJson());
+        Assertions.assertEquals(c.serialize().toString(), c.getSerializedJson());
+    }
+
+    @Test
+    public void testSerializationIsInvalidatedByLocationsEdgesAndNails() {
+        final Component c = new Component(false);
+        final Location location = c.getLocations().get(0);
+        final Edge edge = new Edge(location, EdgeStatus.INPUT);
+        edge.setTargetLocation(location);
+        final Nail nail = new Nail(10, 10);
+        edge.addNail(nail);
+        c.addEdge(edge);
+
+        String json = c.getSerializedJson();
+        location.setInvariant("x <= 5");
+        Assertions.assertNotEquals(json, c.getSerializedJson());
+
+        json = c.getSerializedJson();
+        edge.setGuard("x > 2");
+        Assertions.assertNotEquals(json, c.getSerializedJson());
+
+        json = c.getSerializedJson();
+        nail.setX(20);
+        Assertions.assertNotEquals(json, c.getSerializedJson());
+        Assertions.assertEquals(c.serialize().toString(), c.getSerializedJson());
+    }
+
+    @Test
+    public void testSerializationDigestDependsOnContent() {
+        final Component c = new Component(false);
+        final Component clone = new Component(c.serialize());
+
+        Assertions.assertEquals(c.getSerializationDigest(), clone.getSerializationDigest());
+
+        clone.getLocations().get(0).setInvariant("x <= 5");
+
+        Assertions.assertNotEquals(c.getSerializationDigest(), clone.getSerializationDigest());
+    }
+}
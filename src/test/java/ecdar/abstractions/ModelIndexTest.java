@@ -0,0 +1,88 @@
+package ecdar.abstractions;
+
+import ecdar.Ecdar;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ModelIndexTest {
+    private final ObservableList<Component> components = FXCollections.observableArrayList();
+    private Component a;
+    private Component b;
+    private ModelIndex index;
+
+    @BeforeEach
+    public void setup() {
+        Ecdar.setUpForTest();
+        a = addComponent("A");
+        b = addComponent("B");
+        index = new ModelIndex(components);
+    }
+
+    @Test
+    public void testEdgeIsFoundWithItsComponentAndPosition() {
+        final Edge edge = addEdge(b);
+
+        final ModelIndex.Entry<Edge> entry = index.getEdge(edge.getId());
+
+        Assertions.assertSame(edge, entry.getElement());
+        Assertions.assertSame(b, entry.getComponent());
+        Assertions.assertEquals(1, entry.getComponentIndex());
+        Assertions.assertNull(index.getEdge("unknown"));
+    }
+
+    @Test
+    public void testRemovedEdgeIsNoLongerFound() {
+        final Edge edge = addEdge(a);
+        Assertions.assertNotNull(index.getEdge(edge.getId()));
+
+        a.removeEdge(edge);
+
+        Assertions.assertNull(index.getEdge(edge.getId()));
+    }
+
+    @Test
+    public void testComponentPositionsFollowTheList() {
+        final Edge edge = addEdge(b);
+
+        components.setAll(b, a);
+        Assertions.assertEquals(0, index.getEdge(edge.getId()).getComponentIndex());
+
+        components.remove(b);
+        Assertions.assertNull(index.getEdge(edge.getId()));
+        Assertions.assertEquals(0, index.getComponentIndex(a));
+        Assertions.assertEquals(-1, index.getComponentIndex(b));
+    }
+
+    @Test
+    public void testLocationsAreFoundByComponentName() {
+        final Location location = new Location("L0");
+        a.addLocation(location);
+        b.addLocation(new Location("L0"));
+
+        Assertions.assertSame(location, index.getLocation("A", "L0").getElement());
+        Assertions.assertNotSame(location, index.getLocation("B", "L0").getElement());
+
+        a.setName("C");
+        Assertions.assertNull(index.getLocation("A", "L0"));
+        Assertions.assertSame(location, index.getLocation("C", "L0").getElement());
+    }
+
+    private Component addComponent(String name) {
+        final Component component = new Component(false);
+        component.setName(name);
+        components.add(component);
+        return component;
+    }
+
+    private static Edge addEdge(Component component) {
+        final Location location = new Location("L" + component.getEdges().size());
+        component.addLocation(location);
+        final Edge edge = new Edge(location, EdgeStatus.INPUT);
+        edge.setTargetLocation(location);
+        component.addEdge(edge);
+        return edge;
+    }
+}
@@ -21,4 +21,16 @@ public class QueryTest {
 
         Assertions.assertEquals(expected, result);
     }
+
+    @Test
+    public void testStoredResultIsNoLongerStaleOnceQueryIsExecuted() {
+        final Query query = new Query("refinement: A <= A", "comment", QueryState.UNKNOWN);
+        query.setStoredResultStale(true);
+
+        query.setQueryState(QueryState.UNKNOWN);
+        Assertions.assertTrue(query.isStoredResultStale());
+
+        query.setQueryState(QueryState.RUNNING);
+        Assertions.assertFalse(query.isStoredResultStale());
+    }
 }
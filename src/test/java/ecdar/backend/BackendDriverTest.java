@@ -0,0 +1,69 @@
+package ecdar.backend;
+
+import ecdar.abstractions.BackendInstance;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+public class BackendDriverTest {
+    private final String location = "fake-engine-" + UUID.randomUUID();
+    private final BackendDriver backendDriver = new BackendDriver() {
+        @Override
+        ManagedChannelBuilder<?> newChannelBuilder(String target) {
+            return InProcessChannelBuilder.forName(target).overrideAuthority(target);
+        }
+    };
+    private final BackendInstance backend = new BackendInstance();
+    private List<Server> servers;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        servers = List.of(new FakeEngine().start(location + ":5000"), new FakeEngine().start(location + ":5001"));
+
+        backend.setName("Fake engines");
+        backend.setLocal(false);
+        backend.setBackendLocation(location);
+        backend.setPortStart(5000);
+        backend.setPortEnd(5001);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        backendDriver.closeAllBackendConnections();
+        servers.forEach(Server::shutdownNow);
+    }
+
+    @Test
+    public void testLeasedConnectionPortIsNotConnectedToAgain() throws InterruptedException {
+        final Queue<BackendConnection> leased = new ConcurrentLinkedQueue<>();
+
+        // Neither request releases its connection, such that the query is still running when the interactive request,
+        // which may use the connection reserved for it, is executed
+        backendDriver.addRequestToExecutionQueue(new GrpcRequest(leased::add, backend, GrpcRequest.Priority.USER_QUERY));
+        await(() -> leased.size() == 1);
+        backendDriver.addRequestToExecutionQueue(new GrpcRequest(leased::add, backend, GrpcRequest.Priority.INTERACTIVE));
+        await(() -> leased.size() == 2);
+
+        Assertions.assertEquals(2, leased.size());
+        Assertions.assertEquals(2, leased.stream().map(connection -> connection.getStub().getChannel().authority()).distinct().count());
+        leased.forEach(backendDriver::addBackendConnection);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
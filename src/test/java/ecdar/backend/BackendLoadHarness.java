@@ -0,0 +1,309 @@
+package ecdar.backend;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.abstractions.QueryType;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Replays queries at a fixed rate through a {@link QueryHandler} and a {@link BackendDriver} connected to
+ * {@link FakeEngine}s, one per port of the backend, and reports the throughput, the latency from a query is
+ * submitted until its state is set, and the number of threads used.
+ * The driver is used as in the application, only the channels are built in-process instead of over the network.
+ */
+public class BackendLoadHarness {
+    private int queriesPerSecond = 100;
+    private long durationMillis = 2000;
+    private int numberOfEngines = 3;
+    private boolean threadSafe = false;
+    private FakeEngine.Latency latency = FakeEngine.Latency.logNormal(5, 0.5);
+    private double failureRate = 0;
+
+    public BackendLoadHarness setQueriesPerSecond(int queriesPerSecond) {
+        this.queriesPerSecond = queriesPerSecond;
+        return this;
+    }
+
+    public BackendLoadHarness setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+        return this;
+    }
+
+    public BackendLoadHarness setNumberOfEngines(int numberOfEngines) {
+        this.numberOfEngines = numberOfEngines;
+        return this;
+    }
+
+    public BackendLoadHarness setThreadSafe(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+        return this;
+    }
+
+    public BackendLoadHarness setLatency(FakeEngine.Latency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public BackendLoadHarness setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    /**
+     * Adds the components of all example projects to the current project, and reads their queries.
+     * Components of different projects may share a name, which does not matter to the fake engines.
+     *
+     * @param examplesFolder the folder containing the example projects
+     * @return the query strings of the example projects, e.g. "refinement: A <= B"
+     * @throws IOException if the examples could not be read
+     */
+    public static List<String> loadExamples(Path examplesFolder) throws IOException {
+        final List<String> queries = new ArrayList<>();
+        for (Path projectFolder : getExampleProjects(examplesFolder)) {
+            queries.addAll(loadExample(projectFolder));
+        }
+        return queries;
+    }
+
+    /**
+     * Get the example projects that have both components and queries
+     *
+     * @param examplesFolder the folder containing the example projects
+     * @return the folders of the example projects
+     * @throws IOException if the examples could not be read
+     */
+    public static List<Path> getExampleProjects(Path examplesFolder) throws IOException {
+        try (Stream<Path> files = Files.walk(examplesFolder)) {
+            return files.filter(file -> file.getFileName().toString().equals("Queries.json"))
+                    .map(Path::getParent)
+                    .filter(folder -> Files.isDirectory(folder.resolve("Components")))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Adds the components of an example project to the current project, and reads its queries.
+     * Queries referencing components that are not part of the project are left out, as no engine could answer them.
+     *
+     * @param projectFolder the folder of the example project
+     * @return the query strings of the project, e.g. "refinement: A <= B"
+     * @throws IOException if the project could not be read
+     */
+    public static List<String> loadExample(Path projectFolder) throws IOException {
+        final Set<String> componentNames = new HashSet<>();
+        try (Stream<Path> files = Files.list(projectFolder.resolve("Components"))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).sorted().collect(Collectors.toList())) {
+                final Component component = new Component(JsonParser.parseString(Files.readString(file)).getAsJsonObject());
+                Ecdar.getProject().getComponents().add(component);
+                componentNames.add(component.getName());
+            }
+        }
+
+        final List<String> queries = new ArrayList<>();
+        JsonParser.parseString(Files.readString(projectFolder.resolve("Queries.json"))).getAsJsonArray().forEach(element -> {
+            final String query = element.getAsJsonObject().get("query").getAsString();
+            if (componentNames.containsAll(QueryParser.getReferencedNames(query.split(": ", 2)[1]))) queries.add(query);
+        });
+        return queries;
+    }
+
+    /**
+     * Replays the queries in a round robin at the configured rate for the configured duration,
+     * and waits for all of them to be answered
+     *
+     * @param queries the query strings to replay, e.g. "refinement: A <= B"
+     * @return the report of the run
+     * @throws IOException          if the fake engines could not be started
+     * @throws InterruptedException if interrupted while waiting for the queries to be answered
+     */
+    public Report run(List<String> queries) throws IOException, InterruptedException {
+        final String location = "fake-engine-" + UUID.randomUUID();
+        final BackendInstance backend = new BackendInstance();
+        backend.setName("Fake engine");
+        backend.setLocal(false);
+        backend.setBackendLocation(location);
+        backend.setIsThreadSafe(threadSafe);
+        backend.setPortStart(5000);
+        backend.setPortEnd(5000 + numberOfEngines - 1);
+
+        final List<FakeEngine> engines = new ArrayList<>();
+        final List<Server> servers = new ArrayList<>();
+        for (int port = backend.getPortStart(); port <= backend.getPortEnd(); port++) {
+            final FakeEngine engine = new FakeEngine().setLatency(latency).setFailureRate(failureRate, Status.UNAVAILABLE);
+            engines.add(engine);
+            servers.add(engine.start(location + ":" + port));
+        }
+
+        final BackendDriver backendDriver = new BackendDriver() {
+            @Override
+            ManagedChannelBuilder<?> newChannelBuilder(String target) {
+                // The authority carries the port, like the channels to remote engines
+                return InProcessChannelBuilder.forName(target).overrideAuthority(target);
+            }
+        };
+        final QueryHandler queryHandler = new QueryHandler(backendDriver);
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final Report report = new Report();
+        report.offeredQueriesPerSecond = queriesPerSecond;
+        report.threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger next = new AtomicInteger();
+        final ScheduledExecutorService submitter = Executors.newSingleThreadScheduledExecutor();
+        final long startTime = System.nanoTime();
+        final long[] lastAnswerTime = {startTime};
+
+        submitter.scheduleAtFixedRate(() -> {
+            final Query query = newQuery(queries.get(next.getAndIncrement() % queries.size()), backend);
+            final long submitTime = System.nanoTime();
+            outstanding.incrementAndGet();
+            report.submitted.incrementAndGet();
+
+            final AtomicBoolean started = new AtomicBoolean(false);
+            query.queryStateProperty().addListener((observable, oldValue, newValue) -> {
+                if (newValue == QueryState.RUNNING) started.set(true);
+                if (oldValue != QueryState.RUNNING || newValue == QueryState.RUNNING) return;
+
+                final long now = System.nanoTime();
+                report.latency.record(now - submitTime);
+                if (newValue == QueryState.SUCCESSFUL) report.successful.incrementAndGet();
+                else report.failed.incrementAndGet();
+                synchronized (lastAnswerTime) {
+                    lastAnswerTime[0] = Math.max(lastAnswerTime[0], now);
+                }
+                outstanding.decrementAndGet();
+            });
+
+            // Every replayed query must reach the engines
+            queryHandler.getResultCache().clear();
+            queryHandler.executeQuery(query, GrpcRequest.Priority.USER_QUERY);
+
+            // Queries rejected by the validation are never started
+            if (!started.get()) {
+                report.skipped.incrementAndGet();
+                outstanding.decrementAndGet();
+            }
+        }, 0, TimeUnit.SECONDS.toNanos(1) / queriesPerSecond, TimeUnit.NANOSECONDS);
+
+        Thread.sleep(durationMillis);
+        submitter.shutdown();
+        submitter.awaitTermination(1, TimeUnit.SECONDS);
+
+        final long answerDeadline = System.currentTimeMillis() + durationMillis + 30000;
+        while (outstanding.get() > 0 && System.currentTimeMillis() < answerDeadline) {
+            Thread.sleep(10);
+        }
+
+        report.unanswered = outstanding.get();
+        report.peakThreads = threads.getPeakThreadCount();
+        report.threadsAfter = threads.getThreadCount();
+        synchronized (lastAnswerTime) {
+            report.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(lastAnswerTime[0] - startTime);
+        }
+        for (FakeEngine engine : engines) {
+            report.engineQueries += engine.queries.get();
+            report.engineUploads += engine.uploads.get();
+        }
+        report.backendMetrics = backendDriver.exportMetrics();
+
+        backendDriver.closeAllBackendConnections();
+        servers.forEach(Server::shutdownNow);
+        return report;
+    }
+
+    static Query newQuery(String queryString, BackendInstance backend) {
+        final String[] typeAndQuery = queryString.split(": ", 2);
+        final Query query = new Query(typeAndQuery.length == 2 ? typeAndQuery[1] : queryString, "", QueryState.UNKNOWN);
+        if (typeAndQuery.length == 2) query.setType(QueryType.fromString(typeAndQuery[0]));
+        query.setBackend(backend);
+        return query;
+    }
+
+    /**
+     * The outcome of a load test run
+     */
+    public static class Report {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicInteger submitted = new AtomicInteger();
+        final AtomicInteger successful = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        int offeredQueriesPerSecond;
+        int unanswered;
+        long elapsedMillis;
+        int threadsBefore;
+        int threadsAfter;
+        int peakThreads;
+        long engineQueries;
+        long engineUploads;
+        JsonObject backendMetrics;
+
+        public int getAnswered() {
+            return successful.get() + failed.get();
+        }
+
+        /**
+         * @return the number of answered queries per second, from the first query was submitted until the last was answered
+         */
+        public double getThroughput() {
+            return elapsedMillis == 0 ? 0 : getAnswered() * 1000.0 / elapsedMillis;
+        }
+
+        public JsonObject toJson() {
+            final JsonObject result = new JsonObject();
+            result.addProperty("offeredQueriesPerSecond", offeredQueriesPerSecond);
+            result.addProperty("throughput", getThroughput());
+            result.addProperty("submitted", submitted.get());
+            result.addProperty("successful", successful.get());
+            result.addProperty("failed", failed.get());
+            result.addProperty("skipped", skipped.get());
+            result.addProperty("unanswered", unanswered);
+            result.add("latency", latency.toJson());
+            result.addProperty("threadsBefore", threadsBefore);
+            result.addProperty("peakThreads", peakThreads);
+            result.addProperty("threadsAfter", threadsAfter);
+            result.addProperty("engineQueries", engineQueries);
+            result.addProperty("engineUploads", engineUploads);
+            result.add("backendMetrics", backendMetrics);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("throughput: %.1f/%d queries/s, answered: %d/%d (failed: %d, skipped: %d)"
+                            + ", latency p50/p99/max: %.1f/%.1f/%.1f ms, threads before/peak/after: %d/%d/%d",
+                    getThroughput(), offeredQueriesPerSecond, getAnswered(), submitted.get(), failed.get(), skipped.get(),
+                    latency.getPercentileMillis(50), latency.getPercentileMillis(99), latency.getMaxMillis(),
+                    threadsBefore, peakThreads, threadsAfter);
+        }
+    }
+}
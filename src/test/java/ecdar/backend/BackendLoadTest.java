@@ -0,0 +1,87 @@
+package ecdar.backend;
+
+import com.google.gson.GsonBuilder;
+import ecdar.Ecdar;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Load tests of the backend pipeline against fake engines, replaying the queries of the example projects.
+ * As the outcome of the throughput tests depends on the speed of the machine, they only run if the system property
+ * ecdar.loadTest.enabled is true, e.g. with gradle test -Pecdar.loadTest.enabled=true.
+ * The rate, duration and number of engines can be set with the system properties
+ * ecdar.loadTest.rate, ecdar.loadTest.duration and ecdar.loadTest.engines, and the reports are written as JSON
+ * to the folder given by ecdar.loadTest.reportDir, such that runs can be compared.
+ */
+public class BackendLoadTest {
+    private static final int RATE = Integer.getInteger("ecdar.loadTest.rate", 100);
+    private static final long DURATION = Long.getLong("ecdar.loadTest.duration", 2000);
+    private static final int ENGINES = Integer.getInteger("ecdar.loadTest.engines", 3);
+    private static final String REPORT_DIR = System.getProperty("ecdar.loadTest.reportDir");
+
+    private List<String> queries;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Ecdar.setUpForTest();
+        queries = BackendLoadHarness.loadExamples(Path.of("examples"));
+        Assertions.assertFalse(queries.isEmpty());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "ecdar.loadTest.enabled", matches = "true")
+    public void testEngineThatIsNotThreadSafeKeepsUpWithOfferedRate() throws Exception {
+        final BackendLoadHarness.Report report = newHarness().setThreadSafe(false).run(queries);
+        writeReport("not-thread-safe", report);
+
+        assertAllAnswered(report);
+        Assertions.assertEquals(0, report.failed.get(), report.toString());
+        Assertions.assertTrue(report.getThroughput() >= RATE * 0.8, report.toString());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "ecdar.loadTest.enabled", matches = "true")
+    public void testThreadSafeEngineKeepsUpWithOfferedRate() throws Exception {
+        final BackendLoadHarness.Report report = newHarness().setThreadSafe(true).run(queries);
+        writeReport("thread-safe", report);
+
+        assertAllAnswered(report);
+        Assertions.assertEquals(0, report.failed.get(), report.toString());
+        Assertions.assertTrue(report.getThroughput() >= RATE * 0.8, report.toString());
+    }
+
+    @Test
+    public void testFailingEngineAnswersEveryQuery() throws Exception {
+        final BackendLoadHarness.Report report = newHarness().setFailureRate(0.2).run(queries);
+        writeReport("failing", report);
+
+        assertAllAnswered(report);
+        Assertions.assertTrue(report.failed.get() > 0, report.toString());
+    }
+
+    private BackendLoadHarness newHarness() {
+        return new BackendLoadHarness()
+                .setQueriesPerSecond(RATE)
+                .setDurationMillis(DURATION)
+                .setNumberOfEngines(ENGINES);
+    }
+
+    private static void assertAllAnswered(BackendLoadHarness.Report report) {
+        Assertions.assertEquals(0, report.unanswered, report.toString());
+        Assertions.assertEquals(report.submitted.get(), report.getAnswered() + report.skipped.get(), report.toString());
+    }
+
+    private static void writeReport(String name, BackendLoadHarness.Report report) throws IOException {
+        if (REPORT_DIR == null) return;
+
+        final Path reportDir = Files.createDirectories(Path.of(REPORT_DIR));
+        Files.writeString(reportDir.resolve(name + ".json"), new GsonBuilder().setPrettyPrinting().create().toJson(report.toJson()));
+    }
+}
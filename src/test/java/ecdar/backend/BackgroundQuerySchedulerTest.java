@@ -0,0 +1,180 @@
+package ecdar.backend;
+
+import ecdar.Debug;
+import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.abstractions.QueryType;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BackgroundQuerySchedulerTest {
+    private static final long DEBOUNCE_DELAY = 100;
+    private static final long MAX_DELAY = 400;
+
+    private final List<List<String>> runs = Collections.synchronizedList(new ArrayList<>());
+    private final BooleanProperty enabled = new SimpleBooleanProperty(true);
+    private final BackendInstance backend = new BackendInstance();
+    private volatile QueryState outcome = QueryState.SUCCESSFUL;
+    private Component component;
+    private Query periodicQuery;
+    private BackgroundQueryScheduler scheduler;
+
+    @BeforeEach
+    public void setup() {
+        Ecdar.setUpForTest();
+        BackendHelper.setDefaultBackendInstance(backend);
+        component = Ecdar.getProject().getComponents().get(0);
+        component.setName("A");
+
+        periodicQuery = new Query("A <= A", "", QueryState.UNKNOWN);
+        periodicQuery.setType(QueryType.REFINEMENT);
+        periodicQuery.setBackend(backend);
+        periodicQuery.setIsPeriodic(true);
+        Ecdar.getProject().getQueries().add(periodicQuery);
+
+        // The executed checks are recorded instead of sent to an engine
+        final QueryHandler queryHandler = new QueryHandler(new BackendDriver()) {
+            @Override
+            public void executeQueries(List<Query> queries, GrpcRequest.Priority priority) {
+                Assertions.assertEquals(GrpcRequest.Priority.BACKGROUND, priority);
+                runs.add(queries.stream().map(query -> query.getType().getQueryName() + ": " + query.getQuery()).collect(Collectors.toList()));
+                queries.forEach(query -> {
+                    query.setQueryState(QueryState.RUNNING);
+                    query.setQueryState(outcome);
+                });
+            }
+        };
+        final QueryDependencyGraph dependencyGraph = new QueryDependencyGraph();
+        dependencyGraph.watch(Ecdar.getProject());
+        scheduler = new BackgroundQueryScheduler(queryHandler, dependencyGraph, enabled, Runnable::run, DEBOUNCE_DELAY, MAX_DELAY);
+    }
+
+    @Test
+    public void testPeriodicQueriesAndIncludedComponentsAreChecked() throws InterruptedException {
+        final Component excludedComponent = new Component(false);
+        excludedComponent.setName("B");
+        excludedComponent.setIncludeInPeriodicCheck(false);
+        Ecdar.getProject().getComponents().add(excludedComponent);
+        Ecdar.getProject().getQueries().add(new Query("B <= B", "", QueryState.UNKNOWN));
+
+        scheduler.watch(Ecdar.getProject());
+        awaitRuns(1);
+        Thread.sleep(3 * DEBOUNCE_DELAY);
+
+        Assertions.assertEquals(List.of(List.of("refinement: A <= A", "consistency: A")), runs);
+    }
+
+    @Test
+    public void testBurstOfEditsIsCoalescedIntoSingleRun() throws InterruptedException {
+        scheduler.watch(Ecdar.getProject());
+        awaitRuns(1);
+
+        for (int i = 0; i < 5; i++) {
+            component.setDescription("Edit " + i);
+            Thread.sleep(DEBOUNCE_DELAY / 5);
+        }
+        awaitRuns(2);
+        Thread.sleep(3 * DEBOUNCE_DELAY);
+
+        Assertions.assertEquals(2, runs.size());
+        Assertions.assertEquals(List.of("refinement: A <= A", "consistency: A"), runs.get(1));
+    }
+
+    @Test
+    public void testContinuousEditsAreCheckedAfterMaxDelay() throws InterruptedException {
+        scheduler.watch(Ecdar.getProject());
+        awaitRuns(1);
+
+        final long startTime = System.currentTimeMillis();
+        int edit = 0;
+        while (System.currentTimeMillis() - startTime < 2 * MAX_DELAY) {
+            component.setDescription("Edit " + edit++);
+            Thread.sleep(DEBOUNCE_DELAY / 5);
+        }
+
+        Assertions.assertTrue(runs.size() >= 2, "Runs: " + runs.size());
+    }
+
+    @Test
+    public void testChecksWithUnchangedInputsAreSkipped() throws InterruptedException {
+        scheduler.watch(Ecdar.getProject());
+        awaitRuns(1);
+
+        component.setDescription("Changed");
+        component.setDescription("");
+        Thread.sleep(3 * DEBOUNCE_DELAY);
+        Assertions.assertEquals(1, runs.size());
+
+        periodicQuery.setQuery("A <= A || A");
+        awaitRuns(2);
+        Assertions.assertEquals(List.of("refinement: A <= A || A"), runs.get(1));
+    }
+
+    @Test
+    public void testFailedChecksAreCheckedAgainWithUnchangedInputs() throws InterruptedException {
+        outcome = QueryState.SYNTAX_ERROR;
+        scheduler.watch(Ecdar.getProject());
+        awaitRuns(1);
+
+        outcome = QueryState.SUCCESSFUL;
+        component.setDescription("Changed");
+        component.setDescription("");
+        awaitRuns(2);
+
+        Assertions.assertEquals(List.of("refinement: A <= A", "consistency: A"), runs.get(1));
+    }
+
+    @Test
+    public void testRunIsNoLongerShownAsBackgroundThreadOnceAnswered() throws InterruptedException {
+        scheduler.watch(Ecdar.getProject());
+        awaitRuns(1);
+        Thread.sleep(3 * DEBOUNCE_DELAY);
+
+        Assertions.assertTrue(Debug.backgroundThreads.isEmpty());
+    }
+
+    @Test
+    public void testPeriodicQueryIsNotCheckedWhenUnrelatedComponentIsEdited() throws InterruptedException {
+        final Component unrelatedComponent = new Component(false);
+        unrelatedComponent.setName("B");
+        Ecdar.getProject().getComponents().add(unrelatedComponent);
+        scheduler.watch(Ecdar.getProject());
+        awaitRuns(1);
+
+        unrelatedComponent.setDescription("Changed");
+        awaitRuns(2);
+
+        Assertions.assertEquals(List.of("consistency: B"), runs.get(1));
+    }
+
+    @Test
+    public void testNothingIsCheckedWhileDisabled() throws InterruptedException {
+        enabled.set(false);
+        scheduler.watch(Ecdar.getProject());
+        component.setDescription("Changed");
+        Thread.sleep(3 * DEBOUNCE_DELAY);
+        Assertions.assertTrue(runs.isEmpty());
+
+        enabled.set(true);
+        awaitRuns(1);
+        Assertions.assertEquals(1, runs.size());
+    }
+
+    private void awaitRuns(int numberOfRuns) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (runs.size() < numberOfRuns && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ObjectProtos;
+import EcdarProtoBuf.QueryProtos;
+import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Edge;
+import ecdar.abstractions.EdgeStatus;
+import ecdar.abstractions.Location;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class BatchSimulationTest {
+    private final String location = "fake-engine-" + UUID.randomUUID();
+    private final FakeEngine engine = new FakeEngine();
+    private final BackendDriver backendDriver = new BackendDriver() {
+        @Override
+        ManagedChannelBuilder<?> newChannelBuilder(String target) {
+            return InProcessChannelBuilder.forName(target).overrideAuthority(target);
+        }
+    };
+    private Server server;
+    private Component component;
+    private Edge toL1;
+    private Edge toL0;
+    private Edge toDeadlock;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Ecdar.setUpForTest();
+
+        // L0 <-> L1 -> L2, where L0 is the initial location and L2 has no outgoing edges
+        component = new Component(false);
+        component.setName("A");
+        final Location l0 = component.getInitialLocation();
+        l0.setId("L0");
+        final Location l1 = addLocation("L1");
+        final Location l2 = addLocation("L2");
+        toL1 = addEdge(l0, l1);
+        toL0 = addEdge(l1, l0);
+        toDeadlock = addEdge(l1, l2);
+        Ecdar.getProject().getComponents().setAll(component);
+
+        engine.setSimulationResponder(decision -> {
+            final Location target = decision.hasEdge()
+                    ? component.getEdges().stream().filter(edge -> edge.getId().equals(decision.getEdge().getId())).findFirst().orElseThrow().getTargetLocation()
+                    : l0;
+            return getResponse(target);
+        });
+        server = engine.start(location + ":5000");
+
+        final BackendInstance backend = new BackendInstance();
+        backend.setName("Fake engine");
+        backend.setLocal(false);
+        backend.setBackendLocation(location);
+        backend.setPortStart(5000);
+        backend.setPortEnd(5000);
+        BackendHelper.setDefaultBackendInstance(backend);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        backendDriver.closeAllBackendConnections();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void testRandomWalkCoversModelAndOnlyAsksEngineForNewSteps() throws Exception {
+        final Path traceFile = directory.resolve("trace.jsonl");
+        final BatchSimulation.Report report = run(1000, BatchSimulation.Policy.uniformRandom(42), traceFile);
+
+        Assertions.assertEquals(1000, report.getSteps());
+        Assertions.assertEquals(1.0, report.getLocationCoverage());
+        Assertions.assertEquals(1.0, report.getEdgeCoverage());
+        Assertions.assertEquals(List.of("[\"A.L2\"]"), report.getDeadlocks());
+
+        // Each of the three decisions is only requested once, the remaining steps are answered from the memo
+        Assertions.assertEquals(3, report.getEngineSteps());
+        Assertions.assertEquals(1 + 3, engine.simulationSteps.get());
+
+        final List<String> steps = Files.readAllLines(traceFile).stream().filter(line -> line.contains("\"edge\"")).collect(Collectors.toList());
+        Assertions.assertEquals(1000, steps.size());
+        Assertions.assertTrue(steps.get(0).contains(toL1.getId()));
+    }
+
+    @Test
+    public void testLeastVisitedPolicyTakesEveryEdge() throws Exception {
+        final BatchSimulation.Report report = run(4, BatchSimulation.Policy.leastVisited(42), directory.resolve("trace.jsonl"));
+
+        Assertions.assertEquals(1.0, report.getEdgeCoverage());
+    }
+
+    @Test
+    public void testScenarioIsPlayedBeforeRandomWalk() throws Exception {
+        final Path traceFile = directory.resolve("trace.jsonl");
+        final List<String> scenario = List.of(toL1.getId(), toL0.getId(), toL1.getId(), toDeadlock.getId());
+        final BatchSimulation.Report report = run(4, BatchSimulation.Policy.scenario(scenario, 42), traceFile);
+
+        Assertions.assertEquals(4, report.getSteps());
+        Assertions.assertEquals(List.of("[\"A.L2\"]"), report.getDeadlocks());
+
+        final List<String> trace = Files.readAllLines(traceFile);
+        for (int i = 0; i < scenario.size(); i++) {
+            Assertions.assertTrue(trace.get(i).contains(scenario.get(i)), trace.get(i));
+        }
+    }
+
+    @Test
+    public void testDecisionsUseComponentsAsCapturedWhenStarted() throws Exception {
+        engine.setLatency(FakeEngine.Latency.fixed(20));
+        final Path traceFile = directory.resolve("trace.jsonl");
+        final var result = new BatchSimulation(backendDriver, "A", 10, BatchSimulation.Policy.uniformRandom(42), traceFile).start();
+        component.setName("B");
+        result.get(10, TimeUnit.SECONDS);
+
+        final List<String> steps = Files.readAllLines(traceFile).stream().filter(line -> line.contains("\"edge\"")).collect(Collectors.toList());
+        Assertions.assertEquals(10, steps.size());
+        for (String step : steps) {
+            Assertions.assertTrue(step.contains("\"component\":\"A\""), step);
+        }
+    }
+
+    private BatchSimulation.Report run(int steps, BatchSimulation.Policy policy, Path traceFile) throws Exception {
+        return new BatchSimulation(backendDriver, "A", steps, policy, traceFile).start().get(10, TimeUnit.SECONDS);
+    }
+
+    private Location addLocation(String id) {
+        final Location location = new Location(id);
+        component.addLocation(location);
+        return location;
+    }
+
+    private Edge addEdge(Location source, Location target) {
+        final Edge edge = new Edge(source, EdgeStatus.INPUT);
+        edge.setTargetLocation(target);
+        component.addEdge(edge);
+        return edge;
+    }
+
+    private QueryProtos.SimulationStepResponse getResponse(Location location) {
+        final ObjectProtos.State state = ObjectProtos.State.newBuilder()
+                .setLocationTuple(ObjectProtos.LocationTuple.newBuilder().addLocations(ObjectProtos.Location.newBuilder()
+                        .setId(location.getId())
+                        .setSpecificComponent(ObjectProtos.SpecificComponent.newBuilder().setComponentName("A"))))
+                .build();
+        final ObjectProtos.DecisionPoint.Builder decisionPoint = ObjectProtos.DecisionPoint.newBuilder().setSource(state);
+        for (Edge edge : component.getEdges()) {
+            if (edge.getSourceLocation() == location) decisionPoint.addEdges(ObjectProtos.Edge.newBuilder().setId(edge.getId()));
+        }
+        return QueryProtos.SimulationStepResponse.newBuilder().addNewDecisionPoints(decisionPoint).build();
+    }
+}
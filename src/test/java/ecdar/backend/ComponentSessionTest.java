@@ -0,0 +1,255 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ComponentProtos;
+import EcdarProtoBuf.EcdarBackendGrpc;
+import EcdarProtoBuf.ObjectProtos;
+import EcdarProtoBuf.QueryProtos;
+import ecdar.abstractions.BackendInstance;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ComponentSessionTest {
+    private final StandInEngine engine = new StandInEngine();
+    private Server server;
+    private ManagedChannel channel;
+    private BackendConnection connection;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        final String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName).directExecutor().addService(engine).build().start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        connection = new BackendConnection(new BackendInstance(), null, EcdarBackendGrpc.newStub(channel), channel);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void testComponentsAreOnlyUploadedOncePerConnection() {
+        final ComponentProtos.ComponentsInfo.Builder componentsInfo = generateComponentsInfo(3);
+
+        final RecordingObserver<QueryProtos.QueryResponse> first = sendQuery(componentsInfo);
+        final RecordingObserver<QueryProtos.QueryResponse> second = sendQuery(componentsInfo);
+
+        Assertions.assertEquals(2, engine.queryRequests.size());
+        Assertions.assertEquals(3, engine.queryRequests.get(0).getComponentsInfo().getComponentsCount());
+        Assertions.assertEquals(0, engine.queryRequests.get(1).getComponentsInfo().getComponentsCount());
+        Assertions.assertEquals(componentsInfo.getComponentsHash(), engine.queryRequests.get(1).getComponentsInfo().getComponentsHash());
+        Assertions.assertTrue(first.isSuccessful());
+        Assertions.assertTrue(second.isSuccessful());
+    }
+
+    @Test
+    public void testComponentsAreReuploadedWhenEngineDoesNotKnowTheHash() {
+        final ComponentProtos.ComponentsInfo.Builder componentsInfo = generateComponentsInfo(3);
+        sendQuery(componentsInfo);
+
+        // Simulate a restart of the engine
+        engine.uploadedComponents.clear();
+        final RecordingObserver<QueryProtos.QueryResponse> observer = sendQuery(componentsInfo);
+
+        Assertions.assertEquals(3, engine.queryRequests.size());
+        Assertions.assertEquals(0, engine.queryRequests.get(1).getComponentsInfo().getComponentsCount());
+        Assertions.assertEquals(3, engine.queryRequests.get(2).getComponentsInfo().getComponentsCount());
+        Assertions.assertTrue(observer.isSuccessful());
+    }
+
+    @Test
+    public void testComponentsAreReuploadedWhenEngineAnswersReferenceWithError() {
+        final ComponentProtos.ComponentsInfo.Builder componentsInfo = generateComponentsInfo(3);
+        sendQuery(componentsInfo);
+
+        engine.uploadedComponents.clear();
+        engine.answerUnknownComponentsWithError = true;
+        final RecordingObserver<QueryProtos.QueryResponse> observer = sendQuery(componentsInfo);
+
+        Assertions.assertEquals(3, engine.queryRequests.size());
+        Assertions.assertTrue(observer.isSuccessful());
+        Assertions.assertEquals(QueryProtos.QueryResponse.ResultCase.REFINEMENT, observer.values.get(0).getResultCase());
+    }
+
+    @Test
+    public void testComponentsAreNotReuploadedOnOtherEngineErrors() {
+        final ComponentProtos.ComponentsInfo.Builder componentsInfo = generateComponentsInfo(3);
+        sendQuery(componentsInfo);
+
+        engine.failure = Status.UNAVAILABLE.withDescription("Engine is shutting down");
+        final RecordingObserver<QueryProtos.QueryResponse> observer = sendQuery(componentsInfo);
+
+        Assertions.assertEquals(2, engine.queryRequests.size());
+        Assertions.assertEquals(Status.Code.UNAVAILABLE, Status.fromThrowable(observer.error).getCode());
+    }
+
+    @Test
+    public void testComponentsAreNotReuploadedOnOtherErrorResponses() {
+        final ComponentProtos.ComponentsInfo.Builder componentsInfo = generateComponentsInfo(3);
+        sendQuery(componentsInfo);
+
+        engine.errorResponse = "Syntax error in query";
+        final RecordingObserver<QueryProtos.QueryResponse> observer = sendQuery(componentsInfo);
+
+        Assertions.assertEquals(2, engine.queryRequests.size());
+        Assertions.assertTrue(observer.isSuccessful());
+        Assertions.assertEquals("Syntax error in query", observer.values.get(0).getError());
+    }
+
+    @Test
+    public void testSimulationStepPayloadDoesNotDependOnModelSize() {
+        final List<Integer> smallModelSizes = takeSimulationSteps(generateComponentsInfo(1), 3);
+        final List<Integer> largeModelSizes = takeSimulationSteps(generateComponentsInfo(200), 3);
+
+        Assertions.assertTrue(largeModelSizes.get(0) > smallModelSizes.get(0));
+        for (int i = 1; i < 3; i++) {
+            Assertions.assertEquals(smallModelSizes.get(i), largeModelSizes.get(i));
+        }
+    }
+
+    private List<Integer> takeSimulationSteps(ComponentProtos.ComponentsInfo.Builder componentsInfo, int steps) {
+        engine.stepRequests.clear();
+        for (int i = 0; i < steps; i++) {
+            final RecordingObserver<QueryProtos.SimulationStepResponse> observer = new RecordingObserver<>();
+            final QueryProtos.SimulationInfo.Builder simulationInfo = QueryProtos.SimulationInfo.newBuilder()
+                    .setComponentComposition("(A || B)");
+            connection.sendWithComponents(componentsInfo,
+                    (info, o) -> connection.getStub().takeSimulationStep(QueryProtos.SimulationStepRequest.newBuilder()
+                            .setSimulationInfo(simulationInfo.setComponentsInfo(info)).build(), o),
+                    response -> false,
+                    observer);
+            Assertions.assertTrue(observer.isSuccessful());
+        }
+
+        final List<Integer> sizes = new ArrayList<>();
+        engine.stepRequests.forEach(request -> sizes.add(request.getSerializedSize()));
+        return sizes;
+    }
+
+    private RecordingObserver<QueryProtos.QueryResponse> sendQuery(ComponentProtos.ComponentsInfo.Builder componentsInfo) {
+        final RecordingObserver<QueryProtos.QueryResponse> observer = new RecordingObserver<>();
+        connection.sendWithComponents(componentsInfo,
+                (info, o) -> connection.getStub().sendQuery(QueryProtos.QueryRequest.newBuilder()
+                        .setQuery("refinement: A <= B").setComponentsInfo(info).build(), o),
+                response -> response.getResultCase() == QueryProtos.QueryResponse.ResultCase.ERROR
+                        && BackendConnection.isUnknownComponentsError(response.getError()),
+                observer);
+        return observer;
+    }
+
+    private ComponentProtos.ComponentsInfo.Builder generateComponentsInfo(int numberOfComponents) {
+        final ComponentProtos.ComponentsInfo.Builder componentsInfo = ComponentProtos.ComponentsInfo.newBuilder();
+        for (int i = 0; i < numberOfComponents; i++) {
+            componentsInfo.addComponents(ComponentProtos.Component.newBuilder()
+                    .setJson("{\"name\":\"Component" + i + "\",\"locations\":[],\"edges\":[]}"));
+        }
+        // Negative hashes always take ten bytes on the wire, so the payload size does not depend on the hash value
+        int hash = 0;
+        for (ComponentProtos.Component component : componentsInfo.getComponentsList()) {
+            hash = 31 * hash + component.getJson().hashCode();
+        }
+        componentsInfo.setComponentsHash(hash | Integer.MIN_VALUE);
+        return componentsInfo;
+    }
+
+    /**
+     * Engine caching the uploaded components by their hash, answering references to unknown components with NOT_FOUND
+     */
+    private static class StandInEngine extends EcdarBackendGrpc.EcdarBackendImplBase {
+        final Map<Integer, List<ComponentProtos.Component>> uploadedComponents = new HashMap<>();
+        final List<QueryProtos.QueryRequest> queryRequests = new ArrayList<>();
+        final List<QueryProtos.SimulationStepRequest> stepRequests = new ArrayList<>();
+        boolean answerUnknownComponentsWithError = false;
+        Status failure = null;
+        String errorResponse = null;
+
+        private boolean resolveComponents(ComponentProtos.ComponentsInfo componentsInfo) {
+            if (componentsInfo.getComponentsCount() > 0) {
+                uploadedComponents.put(componentsInfo.getComponentsHash(), componentsInfo.getComponentsList());
+            }
+            return uploadedComponents.containsKey(componentsInfo.getComponentsHash());
+        }
+
+        @Override
+        public void sendQuery(QueryProtos.QueryRequest request, StreamObserver<QueryProtos.QueryResponse> responseObserver) {
+            queryRequests.add(request);
+            if (!resolveComponents(request.getComponentsInfo())) {
+                if (answerUnknownComponentsWithError) {
+                    responseObserver.onNext(QueryProtos.QueryResponse.newBuilder().setError("Unknown components").build());
+                    responseObserver.onCompleted();
+                } else {
+                    responseObserver.onError(Status.NOT_FOUND.withDescription("Unknown components").asException());
+                }
+                return;
+            }
+            if (failure != null) {
+                responseObserver.onError(failure.asException());
+                return;
+            }
+            if (errorResponse != null) {
+                responseObserver.onNext(QueryProtos.QueryResponse.newBuilder().setError(errorResponse).build());
+                responseObserver.onCompleted();
+                return;
+            }
+
+            responseObserver.onNext(QueryProtos.QueryResponse.newBuilder()
+                    .setRefinement(QueryProtos.QueryResponse.RefinementResult.newBuilder().setSuccess(true))
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void takeSimulationStep(QueryProtos.SimulationStepRequest request, StreamObserver<QueryProtos.SimulationStepResponse> responseObserver) {
+            stepRequests.add(request);
+            if (!resolveComponents(request.getSimulationInfo().getComponentsInfo())) {
+                responseObserver.onError(Status.NOT_FOUND.withDescription("Unknown components").asException());
+                return;
+            }
+
+            responseObserver.onNext(QueryProtos.SimulationStepResponse.newBuilder()
+                    .addNewDecisionPoints(ObjectProtos.DecisionPoint.newBuilder())
+                    .build());
+            responseObserver.onCompleted();
+        }
+    }
+
+    private static class RecordingObserver<T> implements StreamObserver<T> {
+        final List<T> values = new ArrayList<>();
+        Throwable error = null;
+        boolean completed = false;
+
+        @Override
+        public void onNext(T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        boolean isSuccessful() {
+            return completed && error == null && values.size() == 1;
+        }
+    }
+}
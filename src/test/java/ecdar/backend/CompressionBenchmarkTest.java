@@ -0,0 +1,167 @@
+package ecdar.backend;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import io.grpc.DecompressorRegistry;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bytes sent on the wire and the latency of executing the queries of each example project,
+ * with and without compression, against a fake engine served over a local network connection.
+ * Each round closes the connections, such that the components are uploaded again.
+ * Like the backend load test, the benchmark only runs if the system property ecdar.loadTest.enabled is true,
+ * and its results are written as JSON to the folder given by ecdar.loadTest.reportDir.
+ */
+public class CompressionBenchmarkTest {
+    private static final int ROUNDS = Integer.getInteger("ecdar.compressionBenchmark.rounds", 3);
+    private static final String REPORT_DIR = System.getProperty("ecdar.loadTest.reportDir");
+
+    private Server server;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = ServerBuilder.forPort(0).addService(new FakeEngine()).build().start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.shutdownNow();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "ecdar.loadTest.enabled", matches = "true")
+    public void testCompressionReducesBytesSentForExampleProjects() throws Exception {
+        final JsonObject results = new JsonObject();
+        for (Path project : BackendLoadHarness.getExampleProjects(Path.of("examples"))) {
+            Ecdar.setUpForTest();
+            final List<String> queries = BackendLoadHarness.loadExample(project);
+            if (queries.isEmpty()) continue;
+
+            final Result uncompressed = run(queries, false);
+            final Result compressed = run(queries, true);
+            final JsonObject result = new JsonObject();
+            result.add("uncompressed", uncompressed.toJson());
+            result.add("compressed", compressed.toJson());
+            results.add(project.getFileName().toString(), result);
+
+            Assertions.assertEquals(uncompressed.uncompressedBytesSent, uncompressed.bytesSent, project.toString());
+            Assertions.assertTrue(compressed.bytesSent < compressed.uncompressedBytesSent, project.toString());
+            Assertions.assertTrue(compressed.bytesSent < uncompressed.bytesSent, project.toString());
+        }
+
+        if (REPORT_DIR != null) {
+            final Path reportDir = Files.createDirectories(Path.of(REPORT_DIR));
+            Files.writeString(reportDir.resolve("compression-benchmark.json"), new GsonBuilder().setPrettyPrinting().create().toJson(results));
+        }
+    }
+
+    @Test
+    public void testCompressedRequestsAreSentUncompressedToEngineWithoutCompression() throws Exception {
+        final Server uncompressingServer = ServerBuilder.forPort(0)
+                .decompressorRegistry(DecompressorRegistry.emptyInstance())
+                .addService(new FakeEngine())
+                .build().start();
+        try {
+            Ecdar.setUpForTest();
+            List<String> queryStrings = List.of();
+            for (Path project : BackendLoadHarness.getExampleProjects(Path.of("examples"))) {
+                queryStrings = BackendLoadHarness.loadExample(project);
+                if (!queryStrings.isEmpty()) break;
+            }
+            final BackendInstance backend = new BackendInstance();
+            backend.setName("Without compression");
+            backend.setLocal(false);
+            backend.setBackendLocation("127.0.0.1");
+            backend.setPortStart(uncompressingServer.getPort());
+            backend.setPortEnd(uncompressingServer.getPort());
+            backend.setCompressMessages(true);
+
+            final BackendDriver backendDriver = new BackendDriver();
+            final QueryHandler queryHandler = new QueryHandler(backendDriver);
+            final List<Query> queries = new ArrayList<>();
+            for (String queryString : queryStrings) {
+                queries.add(BackendLoadHarness.newQuery(queryString, backend));
+            }
+
+            queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+            awaitAnswers(queries);
+            backendDriver.closeAllBackendConnections();
+
+            Assertions.assertFalse(queries.isEmpty());
+            queries.forEach(query -> Assertions.assertEquals(QueryState.SUCCESSFUL, query.getQueryState(), query.getQuery()));
+        } finally {
+            uncompressingServer.shutdownNow();
+        }
+    }
+
+    private Result run(List<String> queryStrings, boolean compress) throws Exception {
+        final BackendInstance backend = new BackendInstance();
+        backend.setName(compress ? "Compressed" : "Uncompressed");
+        backend.setLocal(false);
+        backend.setBackendLocation("127.0.0.1");
+        backend.setPortStart(server.getPort());
+        backend.setPortEnd(server.getPort());
+        backend.setCompressMessages(compress);
+
+        final BackendDriver backendDriver = new BackendDriver();
+        final QueryHandler queryHandler = new QueryHandler(backendDriver);
+
+        final long startTime = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            final List<Query> queries = new ArrayList<>();
+            for (String queryString : queryStrings) {
+                queries.add(BackendLoadHarness.newQuery(queryString, backend));
+            }
+
+            queryHandler.getResultCache().clear();
+            queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+            awaitAnswers(queries);
+            backendDriver.closeAllBackendConnections();
+        }
+
+        final Result result = new Result();
+        result.millisPerRound = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) / (double) ROUNDS;
+        result.bytesSent = backendDriver.getStatistics(backend).getBytesSent();
+        result.uncompressedBytesSent = backendDriver.getStatistics(backend).getUncompressedBytesSent();
+        return result;
+    }
+
+    private static void awaitAnswers(List<Query> queries) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 30000;
+        while (queries.stream().anyMatch(query -> query.getQueryState() == QueryState.RUNNING)) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "The queries were not answered in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private static class Result {
+        double millisPerRound;
+        long bytesSent;
+        long uncompressedBytesSent;
+
+        JsonObject toJson() {
+            final JsonObject result = new JsonObject();
+            result.addProperty("millisPerRound", millisPerRound);
+            result.addProperty("bytesSent", bytesSent);
+            result.addProperty("uncompressedBytesSent", uncompressedBytesSent);
+            return result;
+        }
+    }
+}
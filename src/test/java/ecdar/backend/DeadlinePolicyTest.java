@@ -0,0 +1,109 @@
+package ecdar.backend;
+
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.QueryType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DeadlinePolicyTest {
+    private final DeadlinePolicy policy = new DeadlinePolicy();
+    private final BackendInstance backend = new BackendInstance();
+
+    @Test
+    public void testDefaultDeadlinesAreUsedUntilEnoughLatenciesAreObserved() {
+        for (int i = 0; i < DeadlinePolicy.MIN_SAMPLES - 1; i++) {
+            policy.recordQueryLatency(backend, QueryType.REFINEMENT, 100);
+            policy.recordSimulationLatency(backend, 10);
+        }
+
+        Assertions.assertEquals(DeadlinePolicy.DEFAULT_QUERY_DEADLINE, policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0).getMillis());
+        Assertions.assertEquals(DeadlinePolicy.DEFAULT_SIMULATION_DEADLINE, policy.getSimulationDeadline(backend).getMillis());
+    }
+
+    @Test
+    public void testDeadlineIsDerivedFromPercentileOfItsQueryType() {
+        for (int i = 1; i <= 100; i++) {
+            policy.recordQueryLatency(backend, QueryType.REFINEMENT, i * 100);
+            policy.recordQueryLatency(backend, QueryType.LOCAL_CONSISTENCY, 1);
+        }
+
+        final DeadlinePolicy.ResponseDeadline refinement = policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0);
+        Assertions.assertEquals(9900, refinement.getPercentileMillis());
+        Assertions.assertEquals(9900 * DeadlinePolicy.PERCENTILE_MULTIPLIER, refinement.getMillis());
+        Assertions.assertEquals(DeadlinePolicy.DEFAULT_QUERY_DEADLINE, policy.getQueryDeadline(backend, QueryType.LOCAL_CONSISTENCY, 0).getMillis());
+        Assertions.assertEquals(DeadlinePolicy.DEFAULT_QUERY_DEADLINE, policy.getQueryDeadline(new BackendInstance(), QueryType.REFINEMENT, 0).getMillis());
+    }
+
+    @Test
+    public void testOverrideDeadlineIsUsed() {
+        for (int i = 0; i < DeadlinePolicy.MIN_SAMPLES; i++) {
+            policy.recordQueryLatency(backend, QueryType.REFINEMENT, 100);
+        }
+
+        final DeadlinePolicy.ResponseDeadline deadline = policy.getQueryDeadline(backend, QueryType.REFINEMENT, 3600000);
+        Assertions.assertEquals(3600000, deadline.getMillis());
+        Assertions.assertEquals(-1, deadline.getPercentileMillis());
+    }
+
+    @Test
+    public void testTimeoutsLetDeadlineGrowUpToMaximum() {
+        long previous = 0;
+        for (int i = 0; i < 50; i++) {
+            final DeadlinePolicy.ResponseDeadline deadline = policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0);
+            Assertions.assertTrue(deadline.getMillis() >= previous);
+            previous = deadline.getMillis();
+            policy.recordQueryLatency(backend, QueryType.REFINEMENT, deadline.getMillis());
+        }
+
+        Assertions.assertEquals(DeadlinePolicy.MAX_DEADLINE, previous);
+    }
+
+    @Test
+    public void testTimeoutMessageReportsExceededPercentile() {
+        for (int i = 0; i < DeadlinePolicy.MIN_SAMPLES; i++) {
+            policy.recordQueryLatency(backend, QueryType.REFINEMENT, 10000);
+        }
+
+        final String message = policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0).describeTimeout();
+        Assertions.assertTrue(message.contains("99th percentile of 10.0 s"), message);
+        Assertions.assertTrue(message.contains("refinement queries"), message);
+    }
+
+    @Test
+    public void testQueryDeadlineIsNotShorterThanPreviousExecutionOfTheQuery() {
+        for (int i = 0; i < DeadlinePolicy.MIN_SAMPLES; i++) {
+            policy.recordQueryLatency(backend, QueryType.REFINEMENT, 100);
+        }
+
+        final DeadlinePolicy.ResponseDeadline deadline = policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0, 60000);
+        Assertions.assertEquals(60000 * DeadlinePolicy.PERCENTILE_MULTIPLIER, deadline.getMillis());
+        Assertions.assertEquals(DeadlinePolicy.DEFAULT_QUERY_DEADLINE, policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0, 10).getMillis());
+    }
+
+    @Test
+    public void testRetryDeadlineIsLongerAndDescribed() {
+        final DeadlinePolicy.ResponseDeadline deadline = policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0);
+        final DeadlinePolicy.ResponseDeadline retry = policy.getRetryDeadline(deadline);
+
+        Assertions.assertFalse(deadline.isRetry());
+        Assertions.assertTrue(retry.isRetry());
+        Assertions.assertEquals(deadline.getMillis() * DeadlinePolicy.RETRY_MULTIPLIER, retry.getMillis());
+        Assertions.assertTrue(retry.describeTimeout().contains("retried"), retry.describeTimeout());
+    }
+
+    @Test
+    public void testFlooredAndRetryTimeoutMessagesReportPercentile() {
+        for (int i = 0; i < DeadlinePolicy.MIN_SAMPLES; i++) {
+            policy.recordQueryLatency(backend, QueryType.REFINEMENT, 100);
+        }
+
+        final DeadlinePolicy.ResponseDeadline floored = policy.getQueryDeadline(backend, QueryType.REFINEMENT, 0);
+        final DeadlinePolicy.ResponseDeadline retry = policy.getRetryDeadline(floored);
+        Assertions.assertEquals(DeadlinePolicy.DEFAULT_QUERY_DEADLINE, floored.getMillis());
+        Assertions.assertEquals(100, floored.getPercentileMillis());
+        Assertions.assertEquals(100, retry.getPercentileMillis());
+        Assertions.assertTrue(floored.describeTimeout().contains("99th percentile of 100 ms"), floored.describeTimeout());
+        Assertions.assertTrue(retry.describeTimeout().contains("99th percentile of 100 ms"), retry.describeTimeout());
+        Assertions.assertTrue(retry.describeTimeout().contains("retried"), retry.describeTimeout());
+    }
+}
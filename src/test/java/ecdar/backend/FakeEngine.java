@@ -0,0 +1,169 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ComponentProtos;
+import EcdarProtoBuf.EcdarBackendGrpc;
+import EcdarProtoBuf.ObjectProtos;
+import EcdarProtoBuf.QueryProtos;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process stand-in for an engine, answering queries after a latency drawn from a configurable distribution.
+ * Like the real engines, it caches the uploaded components by their hash and answers queries referencing
+ * components it has not received with an error. A configurable fraction of the queries fail with a status instead.
+ * Simulation steps are answered in the same way as queries.
+ */
+public class FakeEngine extends EcdarBackendGrpc.EcdarBackendImplBase {
+    private static final ScheduledExecutorService responseScheduler = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "Fake engine responses");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<Integer> uploadedComponents = ConcurrentHashMap.newKeySet();
+    private final Random random = new Random(42);
+    private Latency latency = Latency.fixed(0);
+    private double failureRate = 0;
+    private Status failureStatus = Status.UNAVAILABLE.withDescription("Fake failure");
+    private Function<QueryProtos.QueryRequest, QueryProtos.QueryResponse> responder = request -> QueryProtos.QueryResponse.newBuilder()
+            .setRefinement(QueryProtos.QueryResponse.RefinementResult.newBuilder().setSuccess(true))
+            .build();
+    private Function<ObjectProtos.Decision, QueryProtos.SimulationStepResponse> simulationResponder = decision -> QueryProtos.SimulationStepResponse.getDefaultInstance();
+
+    final AtomicLong queries = new AtomicLong();
+    final AtomicLong simulationSteps = new AtomicLong();
+    final AtomicLong uploads = new AtomicLong();
+    final AtomicLong failures = new AtomicLong();
+
+    public FakeEngine setLatency(Latency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @param failureRate   the fraction, between 0 and 1, of queries that fail
+     * @param failureStatus the status the failing queries fail with
+     */
+    public FakeEngine setFailureRate(double failureRate, Status failureStatus) {
+        this.failureRate = failureRate;
+        this.failureStatus = failureStatus;
+        return this;
+    }
+
+    /**
+     * @param responder creates the response to a query, every query is answered with a successful refinement by default
+     */
+    public FakeEngine setResponder(Function<QueryProtos.QueryRequest, QueryProtos.QueryResponse> responder) {
+        this.responder = responder;
+        return this;
+    }
+
+    /**
+     * @param simulationResponder creates the response to a simulation step from the chosen decision,
+     *                            the start of a simulation is answered as the successor of an empty decision
+     */
+    public FakeEngine setSimulationResponder(Function<ObjectProtos.Decision, QueryProtos.SimulationStepResponse> simulationResponder) {
+        this.simulationResponder = simulationResponder;
+        return this;
+    }
+
+    /**
+     * Serve the engine in-process, such that channels built for the name connect to it
+     *
+     * @param name the name to serve the engine under
+     * @return the started server
+     * @throws IOException if the server could not be started
+     */
+    public Server start(String name) throws IOException {
+        return InProcessServerBuilder.forName(name).addService(this).build().start();
+    }
+
+    @Override
+    public void sendQuery(QueryProtos.QueryRequest request, StreamObserver<QueryProtos.QueryResponse> responseObserver) {
+        queries.incrementAndGet();
+        answer(request.getComponentsInfo(), () -> responder.apply(request), responseObserver);
+    }
+
+    @Override
+    public void startSimulation(QueryProtos.SimulationStartRequest request, StreamObserver<QueryProtos.SimulationStepResponse> responseObserver) {
+        simulationSteps.incrementAndGet();
+        answer(request.getSimulationInfo().getComponentsInfo(), () -> simulationResponder.apply(ObjectProtos.Decision.getDefaultInstance()), responseObserver);
+    }
+
+    @Override
+    public void takeSimulationStep(QueryProtos.SimulationStepRequest request, StreamObserver<QueryProtos.SimulationStepResponse> responseObserver) {
+        simulationSteps.incrementAndGet();
+        answer(request.getSimulationInfo().getComponentsInfo(), () -> simulationResponder.apply(request.getChosenDecision()), responseObserver);
+    }
+
+    private <T> void answer(ComponentProtos.ComponentsInfo componentsInfo, Supplier<T> responder, StreamObserver<T> responseObserver) {
+        if (componentsInfo.getComponentsCount() > 0) {
+            uploads.incrementAndGet();
+            uploadedComponents.add(componentsInfo.getComponentsHash());
+        } else if (!uploadedComponents.contains(componentsInfo.getComponentsHash())) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("Unknown components").asException());
+            return;
+        }
+
+        final boolean fail;
+        final long delay;
+        synchronized (random) {
+            fail = random.nextDouble() < failureRate;
+            delay = latency.nextMillis(random);
+        }
+
+        final Runnable response = () -> {
+            if (fail) {
+                failures.incrementAndGet();
+                responseObserver.onError(failureStatus.asException());
+            } else {
+                responseObserver.onNext(responder.get());
+                responseObserver.onCompleted();
+            }
+        };
+
+        if (delay > 0) {
+            responseScheduler.schedule(response, delay, TimeUnit.MILLISECONDS);
+        } else {
+            response.run();
+        }
+    }
+
+    /**
+     * Distribution of the time the engine takes to answer a query
+     */
+    public interface Latency {
+        long nextMillis(Random random);
+
+        static Latency fixed(long millis) {
+            return random -> millis;
+        }
+
+        static Latency uniform(long minMillis, long maxMillis) {
+            return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * Log-normal latencies, where most queries are answered around the median and a few take much longer
+         *
+         * @param medianMillis the median latency
+         * @param sigma        the spread of the latencies, where larger values give a longer tail
+         */
+        static Latency logNormal(long medianMillis, double sigma) {
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.EcdarBackendGrpc;
+import EcdarProtoBuf.QueryProtos;
+import ecdar.abstractions.BackendInstance;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class GrpcRequestTest {
+    @Test
+    public void testInteractiveRequestsAreServedBeforeEarlierQueries() {
+        final PriorityQueue<GrpcRequest> queue = new PriorityQueue<>(GrpcRequest.EXECUTION_ORDER);
+        final List<GrpcRequest> queries = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            final GrpcRequest query = newRequest(GrpcRequest.Priority.USER_QUERY);
+            queries.add(query);
+            queue.add(query);
+        }
+
+        final GrpcRequest background = newRequest(GrpcRequest.Priority.BACKGROUND);
+        queue.add(background);
+        final GrpcRequest simulationStep = newRequest(GrpcRequest.Priority.INTERACTIVE);
+        queue.add(simulationStep);
+
+        Assertions.assertSame(simulationStep, queue.poll());
+        for (GrpcRequest query : queries) {
+            Assertions.assertSame(query, queue.poll());
+        }
+        Assertions.assertSame(background, queue.poll());
+    }
+
+    @Test
+    public void testDefaultPriorityIsUserQuery() {
+        final GrpcRequest request = new GrpcRequest(connection -> {}, null);
+
+        Assertions.assertEquals(GrpcRequest.Priority.USER_QUERY, request.getPriority());
+    }
+
+    @Test
+    public void testCancellingRequestCancelsCallOnEngine() throws Exception {
+        final CountDownLatch callReceived = new CountDownLatch(1);
+        final CompletableFuture<Boolean> cancelledOnEngine = new CompletableFuture<>();
+        final String serverName = InProcessServerBuilder.generateName();
+        final Server server = InProcessServerBuilder.forName(serverName).addService(new EcdarBackendGrpc.EcdarBackendImplBase() {
+            @Override
+            public void sendQuery(QueryProtos.QueryRequest request, StreamObserver<QueryProtos.QueryResponse> responseObserver) {
+                // Never answer, like an engine stuck on a hard query
+                Context.current().addListener(context -> cancelledOnEngine.complete(true), Runnable::run);
+                callReceived.countDown();
+            }
+        }).build().start();
+        final ManagedChannel channel = InProcessChannelBuilder.forName(serverName).build();
+
+        try {
+            final BackendConnection connection = new BackendConnection(new BackendInstance(), null, EcdarBackendGrpc.newStub(channel), channel);
+            final CompletableFuture<Throwable> error = new CompletableFuture<>();
+            final GrpcRequest request = new GrpcRequest(c -> c.getStub().sendQuery(QueryProtos.QueryRequest.getDefaultInstance(), new StreamObserver<>() {
+                @Override
+                public void onNext(QueryProtos.QueryResponse value) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    error.complete(t);
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            }), null);
+
+            request.execute(connection);
+            Assertions.assertTrue(callReceived.await(5, TimeUnit.SECONDS));
+            request.cancel();
+
+            Assertions.assertEquals(Status.Code.CANCELLED, Status.fromThrowable(error.get(5, TimeUnit.SECONDS)).getCode());
+            Assertions.assertTrue(cancelledOnEngine.get(5, TimeUnit.SECONDS));
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancellingParentContextCancelsRequest() throws Exception {
+        final Context.CancellableContext parent = Context.ROOT.withCancellation();
+        final GrpcRequest request = parent.wrap(() -> new GrpcRequest(connection -> {}, null)).call();
+
+        parent.cancel(null);
+
+        Assertions.assertTrue(request.isCancelled());
+    }
+
+    private GrpcRequest newRequest(GrpcRequest.Priority priority) {
+        final GrpcRequest request = new GrpcRequest(connection -> {}, null, priority);
+        request.markEnqueued();
+        return request;
+    }
+}
@@ -0,0 +1,53 @@
+package ecdar.backend;
+
+import ecdar.abstractions.QueryType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testPercentilesAreWithinPrecisionOfRecordedLatencies() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        Assertions.assertEquals(1000, histogram.getCount());
+        Assertions.assertEquals(500, histogram.getPercentileMillis(50), 500 * 0.04);
+        Assertions.assertEquals(990, histogram.getPercentileMillis(99), 990 * 0.04);
+        Assertions.assertEquals(1000, histogram.getMaxMillis());
+        Assertions.assertEquals(500.5, histogram.getMeanMillis(), 0.01);
+    }
+
+    @Test
+    public void testEveryValueLiesWithinItsBucket() {
+        for (long value = 0; value < 1_000_000; value = value * 3 / 2 + 1) {
+            final int bucket = LatencyHistogram.getBucket(value);
+            Assertions.assertTrue(value <= LatencyHistogram.getUpperBound(bucket), "Value above bucket: " + value);
+            Assertions.assertTrue(bucket == 0 || value > LatencyHistogram.getUpperBound(bucket - 1), "Value below bucket: " + value);
+        }
+        Assertions.assertTrue(LatencyHistogram.getBucket(Long.MAX_VALUE) >= 0);
+    }
+
+    @Test
+    public void testEmptyHistogramReportsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        Assertions.assertEquals(0, histogram.getPercentileMillis(99));
+        Assertions.assertEquals(0, histogram.getMeanMillis());
+    }
+
+    @Test
+    public void testStatisticsKeepHistogramPerStageAndQueryType() {
+        final BackendStatistics statistics = new BackendStatistics();
+        statistics.recordQueueWait(TimeUnit.MILLISECONDS.toNanos(5));
+        statistics.recordLatency(BackendStatistics.Stage.ENGINE, QueryType.REFINEMENT, TimeUnit.MILLISECONDS.toNanos(20));
+        statistics.recordLatency(BackendStatistics.Stage.ENGINE, QueryType.REFINEMENT, TimeUnit.MILLISECONDS.toNanos(30));
+
+        Assertions.assertEquals(1, statistics.getHistograms().get(BackendStatistics.Stage.QUEUE_WAIT).get("all").getCount());
+        Assertions.assertEquals(2, statistics.getHistograms().get(BackendStatistics.Stage.ENGINE).get(QueryType.REFINEMENT.getQueryName()).getCount());
+        Assertions.assertEquals(2, statistics.toJson().getAsJsonArray("latencies").size());
+    }
+}
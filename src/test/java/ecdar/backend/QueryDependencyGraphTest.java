@@ -0,0 +1,102 @@
+package ecdar.backend;
+
+import ecdar.Ecdar;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+public class QueryDependencyGraphTest {
+    private final QueryDependencyGraph graph = new QueryDependencyGraph();
+    private Component a;
+    private Component b;
+    private Component c;
+
+    @BeforeEach
+    public void setup() {
+        Ecdar.setUpForTest();
+        Ecdar.getProject().getComponents().clear();
+        a = addComponent("A");
+        b = addComponent("B");
+        c = addComponent("C");
+        graph.watch(Ecdar.getProject());
+    }
+
+    @Test
+    public void testQueriesAreAffectedUntilExecuted() {
+        final Query query = addQuery("A <= B");
+        Assertions.assertEquals(List.of(query), graph.getAffectedQueries());
+
+        execute(query);
+        Assertions.assertTrue(graph.getAffectedQueries().isEmpty());
+    }
+
+    @Test
+    public void testOnlyQueriesDependingOnEditedComponentAreAffected() {
+        final Query ab = addQuery("A <= B");
+        final Query bc = addQuery("B || C <= C");
+        final Query ca = addQuery("C <= A");
+        List.of(ab, bc, ca).forEach(this::execute);
+
+        b.setDescription("Changed");
+
+        Assertions.assertEquals(List.of(ab, bc), graph.getAffectedQueries());
+        Assertions.assertEquals(Set.of(ab, bc), graph.getDependents("B"));
+    }
+
+    @Test
+    public void testEditedQueryIsAffectedAndItsDependenciesAreUpdated() {
+        final Query query = addQuery("A <= B");
+        execute(query);
+
+        query.setQuery("A <= C");
+
+        Assertions.assertTrue(graph.isAffected(query));
+        Assertions.assertEquals(Set.of("A", "C"), graph.getDependencies(query));
+        Assertions.assertTrue(graph.getDependents("B").isEmpty());
+    }
+
+    @Test
+    public void testRenamingComponentAffectsQueriesReferencingEitherName() {
+        final Query oldName = addQuery("A <= B");
+        final Query newName = addQuery("D <= B");
+        final Query unrelated = addQuery("B <= C");
+        List.of(oldName, newName, unrelated).forEach(this::execute);
+
+        a.setName("D");
+
+        Assertions.assertEquals(List.of(oldName, newName), graph.getAffectedQueries());
+    }
+
+    @Test
+    public void testRemovedQueryIsForgotten() {
+        final Query query = addQuery("A <= B");
+        Ecdar.getProject().getQueries().remove(query);
+
+        Assertions.assertTrue(graph.getAffectedQueries().isEmpty());
+        Assertions.assertTrue(graph.getDependents("A").isEmpty());
+    }
+
+    private Component addComponent(String name) {
+        final Component component = new Component(false);
+        component.setName(name);
+        Ecdar.getProject().getComponents().add(component);
+        return component;
+    }
+
+    private Query addQuery(String queryString) {
+        final Query query = new Query(queryString, "", QueryState.UNKNOWN);
+        Ecdar.getProject().getQueries().add(query);
+        return query;
+    }
+
+    private void execute(Query query) {
+        query.setQueryState(QueryState.RUNNING);
+        query.setQueryState(QueryState.SUCCESSFUL);
+    }
+}
@@ -0,0 +1,258 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ComponentProtos;
+import EcdarProtoBuf.EcdarBackendGrpc;
+import EcdarProtoBuf.QueryProtos;
+import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Query;
+import ecdar.abstractions.QueryState;
+import ecdar.abstractions.QueryType;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class QueryHandlerTest {
+    private final StandInEngine engine = new StandInEngine();
+    private final List<GrpcRequest> requests = new ArrayList<>();
+    private final BackendInstance backend = new BackendInstance();
+    private Server server;
+    private ManagedChannel channel;
+    private int releasedConnections = 0;
+    private QueryHandler queryHandler;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Ecdar.setUpForTest();
+        for (String name : List.of("A", "B", "C")) {
+            final Component component = new Component(false);
+            component.setName(name);
+            Ecdar.getProject().getComponents().add(component);
+        }
+
+        final String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName).directExecutor().addService(engine).build().start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+
+        // Requests are held, such that they can be executed on the stand-in engine when the test is ready
+        queryHandler = new QueryHandler(new BackendDriver() {
+            @Override
+            public void addRequestToExecutionQueue(GrpcRequest request) {
+                requests.add(request);
+            }
+
+            @Override
+            public void addBackendConnection(BackendConnection backendConnection) {
+                releasedConnections++;
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void testBatchUploadsComponentsOnceForThreadSafeBackend() {
+        backend.setIsThreadSafe(true);
+        final List<Query> queries = generateQueries(20);
+
+        queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        executeRequests();
+
+        Assertions.assertEquals(1, requests.size());
+        Assertions.assertEquals(20, engine.queryRequests.size());
+        Assertions.assertEquals(1, engine.uploads);
+        Assertions.assertEquals(3, engine.queryRequests.get(0).getComponentsInfo().getComponentsCount());
+        Assertions.assertEquals(1, releasedConnections);
+        queries.forEach(query -> Assertions.assertEquals(QueryState.SUCCESSFUL, query.getQueryState()));
+    }
+
+    @Test
+    public void testShardStealsQueriesOfShardThatHasNotStarted() {
+        backend.setPortStart(5000);
+        backend.setPortEnd(5002);
+        final List<Query> queries = generateQueries(10);
+
+        queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        Assertions.assertEquals(2, requests.size());
+
+        // The first shard finishes its own queries and those of the second shard, which is then no longer needed
+        requests.get(0).execute(newConnection());
+
+        Assertions.assertEquals(10, engine.queryRequests.size());
+        Assertions.assertEquals(1, engine.uploads);
+        Assertions.assertEquals(1, releasedConnections);
+        Assertions.assertTrue(requests.get(1).isCancelled());
+        queries.forEach(query -> Assertions.assertEquals(QueryState.SUCCESSFUL, query.getQueryState()));
+    }
+
+    @Test
+    public void testLongestQueryIsAssignedToShardOfItsOwn() {
+        backend.setPortStart(5000);
+        backend.setPortEnd(5002);
+        final List<Query> queries = generateQueries(4);
+        engine.slowQuery = "refinement: " + queries.get(0).getQuery();
+
+        // Learn the execution times of the queries
+        queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        executeRequests();
+        queryHandler.getResultCache().clear();
+        requests.clear();
+        engine.queryRequests.clear();
+
+        queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        requests.get(1).execute(newConnection());
+
+        // The second shard got the three short queries, and steals the long one last
+        Assertions.assertEquals(4, engine.queryRequests.size());
+        Assertions.assertEquals(engine.slowQuery, engine.queryRequests.get(3).getQuery());
+    }
+
+    @Test
+    public void testCancelledQueryIsNotSentWithTheRestOfItsBatch() {
+        backend.setIsThreadSafe(true);
+        final List<Query> queries = generateQueries(5);
+
+        queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        queries.get(2).cancel();
+        executeRequests();
+
+        Assertions.assertFalse(requests.get(0).isCancelled());
+        Assertions.assertEquals(4, engine.queryRequests.size());
+        Assertions.assertEquals(QueryState.UNKNOWN, queries.get(2).getQueryState());
+    }
+
+    @Test
+    public void testRequestIsCancelledWhenAllQueriesOfBatchAreCancelled() {
+        backend.setIsThreadSafe(true);
+        final List<Query> queries = generateQueries(3);
+
+        queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        queries.forEach(Query::cancel);
+
+        Assertions.assertTrue(requests.get(0).isCancelled());
+    }
+
+    @Test
+    public void testQueriesInFlightAreLimitedByMaxCallsPerConnection() {
+        backend.setIsThreadSafe(true);
+        backend.setMaxCallsPerConnection(2);
+        final List<Query> queries = generateQueries(6);
+        engine.holdResponses = true;
+
+        queryHandler.executeQueries(queries, GrpcRequest.Priority.USER_QUERY);
+        executeRequests();
+        Assertions.assertEquals(1, engine.queryRequests.size());
+
+        // Once the components are uploaded, the queries are sent two at a time
+        engine.answerNext();
+        Assertions.assertEquals(3, engine.queryRequests.size());
+        engine.answerNext();
+        Assertions.assertEquals(4, engine.queryRequests.size());
+
+        while (!engine.heldResponses.isEmpty()) engine.answerNext();
+        Assertions.assertEquals(6, engine.queryRequests.size());
+        queries.forEach(query -> Assertions.assertEquals(QueryState.SUCCESSFUL, query.getQueryState()));
+    }
+
+    @Test
+    public void testThreadSafeBackendGetsShardPerMaxCallsPerConnection() {
+        backend.setIsThreadSafe(true);
+        backend.setMaxCallsPerConnection(4);
+        backend.setPortStart(5000);
+        backend.setPortEnd(5010);
+
+        queryHandler.executeQueries(generateQueries(10), GrpcRequest.Priority.USER_QUERY);
+
+        Assertions.assertEquals(3, requests.size());
+    }
+
+    private void executeRequests() {
+        for (GrpcRequest request : requests) {
+            request.execute(newConnection());
+        }
+    }
+
+    private BackendConnection newConnection() {
+        return new BackendConnection(backend, null, EcdarBackendGrpc.newStub(channel), channel);
+    }
+
+    private List<Query> generateQueries(int numberOfQueries) {
+        final List<Query> queries = new ArrayList<>();
+        for (int i = 0; i < numberOfQueries; i++) {
+            // Distinct queries, such that none of them are answered from the result cache
+            final Query query = new Query("A <= B || C" + " || A".repeat(i), "", QueryState.UNKNOWN);
+            query.setType(QueryType.REFINEMENT);
+            query.setBackend(backend);
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    /**
+     * Engine caching the uploaded components by their hash, answering every resolvable query with a refinement.
+     * The slow query takes longer to answer than the others, and responses can be held until the test answers them
+     */
+    private static class StandInEngine extends EcdarBackendGrpc.EcdarBackendImplBase {
+        final Set<Integer> uploadedComponents = new HashSet<>();
+        final List<QueryProtos.QueryRequest> queryRequests = new ArrayList<>();
+        final List<Runnable> heldResponses = new ArrayList<>();
+        int uploads = 0;
+        String slowQuery = null;
+        boolean holdResponses = false;
+
+        void answerNext() {
+            heldResponses.remove(0).run();
+        }
+
+        @Override
+        public void sendQuery(QueryProtos.QueryRequest request, StreamObserver<QueryProtos.QueryResponse> responseObserver) {
+            queryRequests.add(request);
+            if (request.getQuery().equals(slowQuery)) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            final ComponentProtos.ComponentsInfo componentsInfo = request.getComponentsInfo();
+            if (componentsInfo.getComponentsCount() > 0) {
+                uploads++;
+                uploadedComponents.add(componentsInfo.getComponentsHash());
+            } else if (!uploadedComponents.contains(componentsInfo.getComponentsHash())) {
+                responseObserver.onError(Status.NOT_FOUND.withDescription("Unknown components").asException());
+                return;
+            }
+
+            final Runnable response = () -> {
+                responseObserver.onNext(QueryProtos.QueryResponse.newBuilder()
+                        .setRefinement(QueryProtos.QueryResponse.RefinementResult.newBuilder().setSuccess(true))
+                        .build());
+                responseObserver.onCompleted();
+            };
+            if (holdResponses) {
+                heldResponses.add(response);
+            } else {
+                response.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ecdar.backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class QueryParserTest {
+    @Test
+    public void testNamesAreMatchedExactly() {
+        Assertions.assertEquals(List.of("Machine2", "Spec"), List.copyOf(QueryParser.getReferencedNames("Machine2 <= Spec")));
+    }
+
+    @Test
+    public void testCompositionConjunctionAndQuotient() {
+        Assertions.assertEquals(List.of("G1", "A1", "G2", "A2", "B"),
+                List.copyOf(QueryParser.getReferencedNames("G1 <= ((A1 || G2) \\ A2) && B")));
+    }
+
+    @Test
+    public void testQueryTypePrefixIsIgnored() {
+        Assertions.assertEquals(List.of("Administration", "Machine", "Researcher"),
+                List.copyOf(QueryParser.getReferencedNames("consistency: (Administration || Machine || Researcher)")));
+    }
+
+    @Test
+    public void testReachabilityStatesAreSkipped() {
+        Assertions.assertEquals(List.of("m1", "M2"),
+                List.copyOf(QueryParser.getReferencedNames("m1||M2 -> [L1,L4](y<3);[L2,_]()")));
+        Assertions.assertEquals(List.of("Receiver"), List.copyOf(QueryParser.getReferencedNames("Receiver.L4")));
+    }
+
+    @Test
+    public void testGeneratedComponentNameIsSkipped() {
+        Assertions.assertEquals(List.of("A", "B"), List.copyOf(QueryParser.getReferencedNames("A || B save-as C")));
+    }
+
+    @Test
+    public void testMalformedQueryFallsBackToAllNames() {
+        Assertions.assertEquals(List.of("A", "B"), List.copyOf(QueryParser.getReferencedNames("(A || <= B")));
+    }
+}
@@ -0,0 +1,76 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.QueryType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class QueryResultCacheTest {
+    private final BackendInstance backend = new BackendInstance();
+
+    QueryResultCacheTest() {
+        backend.setName("Reveaal");
+    }
+
+    @Test
+    public void testKeyIgnoresWhitespaceInQuery() {
+        final String key1 = QueryResultCache.getKey(QueryType.REFINEMENT, "(A || B) <= Spec", backend, "hash");
+        final String key2 = QueryResultCache.getKey(QueryType.REFINEMENT, "(A||B)<=Spec", backend, "hash");
+
+        Assertions.assertEquals(key1, key2);
+    }
+
+    @Test
+    public void testKeyDependsOnComponentsHash() {
+        final String key1 = QueryResultCache.getKey(QueryType.REFINEMENT, "A <= B", backend, "hash1");
+        final String key2 = QueryResultCache.getKey(QueryType.REFINEMENT, "A <= B", backend, "hash2");
+
+        Assertions.assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResultIsEvicted() {
+        final QueryResultCache cache = new QueryResultCache(2, Long.MAX_VALUE);
+        cache.put("a", refinementResponse(true));
+        cache.put("b", refinementResponse(false));
+
+        // Use "a", such that "b" is the least recently used result
+        Assertions.assertNotNull(cache.get("a"));
+        cache.put("c", refinementResponse(true));
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNotNull(cache.get("a"));
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testResultsAreEvictedWhenSizeCapIsExceeded() {
+        final QueryProtos.QueryResponse response = refinementResponse(false);
+        final QueryResultCache cache = new QueryResultCache(100, response.getSerializedSize() * 2L);
+        cache.put("a", response);
+        cache.put("b", response);
+        cache.put("c", response);
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(cache.getSizeInBytes() <= response.getSerializedSize() * 2L);
+        Assertions.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        final QueryResultCache cache = new QueryResultCache(10, Long.MAX_VALUE);
+        cache.put("a", QueryProtos.QueryResponse.newBuilder().setError("Engine crashed").build());
+
+        Assertions.assertNull(cache.get("a"));
+    }
+
+    private QueryProtos.QueryResponse refinementResponse(boolean success) {
+        return QueryProtos.QueryResponse.newBuilder()
+                .setRefinement(QueryProtos.QueryResponse.RefinementResult.newBuilder()
+                        .setSuccess(success)
+                        .setReason(success ? "" : "Not a refinement"))
+                .build();
+    }
+}
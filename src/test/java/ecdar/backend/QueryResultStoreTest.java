@@ -0,0 +1,78 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.QueryProtos;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class QueryResultStoreTest {
+    @TempDir
+    File projectFolder;
+
+    @Test
+    public void testResultsAreRestoredInNewSession() throws IOException {
+        final QueryResultStore store = new QueryResultStore(projectFolder);
+        store.load();
+        store.put("refinement|A<=B|Reveaal", "hash", refinementResponse(false));
+
+        final QueryResultStore nextSession = new QueryResultStore(projectFolder);
+        nextSession.load();
+
+        final QueryResultStore.StoredResult result = nextSession.get("refinement|A<=B|Reveaal");
+        Assertions.assertNotNull(result);
+        Assertions.assertEquals(refinementResponse(false), result.getResponse());
+        Assertions.assertFalse(result.isStale("hash"));
+        Assertions.assertTrue(result.isStale("otherHash"));
+    }
+
+    @Test
+    public void testOnlyLatestResultIsKeptOnLoad() throws IOException {
+        final QueryResultStore store = new QueryResultStore(projectFolder);
+        store.put("refinement|A<=B|Reveaal", "hash1", refinementResponse(false));
+        store.put("refinement|A<=B|Reveaal", "hash2", refinementResponse(true));
+
+        final QueryResultStore nextSession = new QueryResultStore(projectFolder);
+        nextSession.load();
+
+        Assertions.assertEquals(1, nextSession.size());
+        Assertions.assertEquals("hash2", nextSession.get("refinement|A<=B|Reveaal").getComponentsHash());
+        Assertions.assertEquals(1, Files.readAllLines(new File(projectFolder, QueryResultStore.FILENAME).toPath()).size());
+    }
+
+    @Test
+    public void testPartiallyWrittenLineIsIgnored() throws IOException {
+        final QueryResultStore store = new QueryResultStore(projectFolder);
+        store.put("refinement|A<=B|Reveaal", "hash", refinementResponse(true));
+        try (FileWriter writer = new FileWriter(new File(projectFolder, QueryResultStore.FILENAME), true)) {
+            writer.write("consistency|A|Reveaal\thash\t");
+        }
+
+        final QueryResultStore nextSession = new QueryResultStore(projectFolder);
+        nextSession.load();
+
+        Assertions.assertEquals(1, nextSession.size());
+        Assertions.assertNull(nextSession.get("consistency|A|Reveaal"));
+    }
+
+    @Test
+    public void testErrorsAreNotStored() {
+        final QueryResultStore store = new QueryResultStore(projectFolder);
+        store.put("refinement|A<=B|Reveaal", "hash", QueryProtos.QueryResponse.newBuilder().setError("Unknown component").build());
+
+        Assertions.assertNull(store.get("refinement|A<=B|Reveaal"));
+        Assertions.assertFalse(new File(projectFolder, QueryResultStore.FILENAME).exists());
+    }
+
+    private QueryProtos.QueryResponse refinementResponse(boolean success) {
+        return QueryProtos.QueryResponse.newBuilder()
+                .setRefinement(QueryProtos.QueryResponse.RefinementResult.newBuilder()
+                        .setSuccess(success)
+                        .setReason(success ? "" : "Not a refinement"))
+                .build();
+    }
+}
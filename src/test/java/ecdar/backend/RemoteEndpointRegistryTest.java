@@ -0,0 +1,67 @@
+package ecdar.backend;
+
+import ecdar.abstractions.BackendInstance;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RemoteEndpointRegistryTest {
+    private static final int PROBE_TIME = 200;
+
+    private final BackendInstance backend = new BackendInstance();
+    private final Set<Integer> runningEngines = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger probes = new AtomicInteger();
+    private final RemoteEndpointRegistry registry = new RemoteEndpointRegistry((host, port) -> {
+        probes.incrementAndGet();
+        try {
+            Thread.sleep(PROBE_TIME);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return runningEngines.contains(port);
+    });
+
+    @BeforeEach
+    public void setup() {
+        backend.setLocal(false);
+        backend.setBackendLocation("127.0.0.1");
+        backend.setPortStart(5000);
+        backend.setPortEnd(5015);
+        runningEngines.addAll(Set.of(5000, 5003, 5015));
+    }
+
+    @Test
+    public void testPortsAreProbedConcurrently() {
+        final long startTime = System.currentTimeMillis();
+        final Set<Integer> ports = registry.getLiveEndpoints(backend);
+        final long elapsed = System.currentTimeMillis() - startTime;
+
+        Assertions.assertEquals(Set.of(5000, 5003, 5015), ports);
+        Assertions.assertEquals(16, probes.get());
+        Assertions.assertTrue(elapsed < 4 * PROBE_TIME, "Probing took " + elapsed + " ms");
+    }
+
+    @Test
+    public void testLiveEndpointsAreOnlyProbedOnce() {
+        registry.getLiveEndpoints(backend);
+        registry.getLiveEndpoints(backend);
+
+        Assertions.assertEquals(16, probes.get());
+    }
+
+    @Test
+    public void testDeadPortIsNotHandedOutUntilRefreshed() {
+        registry.getLiveEndpoints(backend);
+
+        registry.markDead(backend, 5003);
+        Assertions.assertEquals(Set.of(5000, 5015), registry.getLiveEndpoints(backend));
+
+        runningEngines.add(5007);
+        Assertions.assertEquals(Set.of(5000, 5003, 5007, 5015), registry.refresh(backend).join());
+        Assertions.assertEquals(Set.of(5000, 5003, 5007, 5015), registry.getLiveEndpoints(backend));
+    }
+}
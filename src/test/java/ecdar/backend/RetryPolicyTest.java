@@ -0,0 +1,41 @@
+package ecdar.backend;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RetryPolicyTest {
+    @Test
+    public void testDelayGrowsExponentiallyUpToMaximum() {
+        final RetryPolicy policy = new RetryPolicy(10, 200, 1000, 0);
+        final GrpcRequest request = new GrpcRequest(connection -> {}, null);
+
+        final long[] expectedDelays = {200, 400, 800, 1000, 1000};
+        for (long expectedDelay : expectedDelays) {
+            request.tries++;
+            Assertions.assertEquals(expectedDelay, policy.getDelay(request));
+        }
+    }
+
+    @Test
+    public void testJitterOnlyShortensDelay() {
+        final RetryPolicy policy = new RetryPolicy(10, 1000, 1000, 0.5);
+        final GrpcRequest request = new GrpcRequest(connection -> {}, null);
+        request.tries++;
+
+        for (int i = 0; i < 100; i++) {
+            final long delay = policy.getDelay(request);
+            Assertions.assertTrue(delay > 500 && delay <= 1000, "Delay out of range: " + delay);
+        }
+    }
+
+    @Test
+    public void testRequestIsGivenUpWhenRetryBudgetIsSpent() {
+        final RetryPolicy policy = new RetryPolicy(3, 200, 1000, 0);
+        final GrpcRequest request = new GrpcRequest(connection -> {}, null);
+
+        for (int i = 0; i < 3; i++) {
+            request.tries++;
+            Assertions.assertEquals(request.tries < 3, policy.shouldRetry(request));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ObjectProtos;
+import EcdarProtoBuf.QueryProtos;
+import ecdar.Ecdar;
+import ecdar.abstractions.BackendInstance;
+import ecdar.abstractions.Component;
+import ecdar.abstractions.Edge;
+import ecdar.abstractions.EdgeStatus;
+import ecdar.abstractions.Location;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+public class SimulationHandlerTest {
+    private final String location = "fake-engine-" + UUID.randomUUID();
+    private final FakeEngine engine = new FakeEngine();
+    private final BackendDriver backendDriver = new BackendDriver() {
+        @Override
+        ManagedChannelBuilder<?> newChannelBuilder(String target) {
+            return InProcessChannelBuilder.forName(target).overrideAuthority(target);
+        }
+    };
+    private Server server;
+    private List<Edge> edges;
+    private SimulationHandler simulationHandler;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Ecdar.setUpForTest();
+        final Component component = new Component(false);
+        component.setName("A");
+        final Location initial = new Location("L0");
+        component.addLocation(initial);
+        for (int i = 0; i < 3; i++) {
+            final Edge edge = new Edge(initial, EdgeStatus.INPUT);
+            edge.setTargetLocation(initial);
+            component.addEdge(edge);
+        }
+        Ecdar.getProject().getComponents().setAll(component);
+        edges = component.getEdges();
+
+        // The successor of each decision is a state named after the chosen edge, where the edge is enabled again
+        engine.setSimulationResponder(decision -> {
+            final boolean start = !decision.hasEdge();
+            final ObjectProtos.State state = ObjectProtos.State.newBuilder()
+                    .setLocationTuple(ObjectProtos.LocationTuple.newBuilder().addLocations(ObjectProtos.Location.newBuilder()
+                            .setId(start ? "L0" : decision.getEdge().getId())
+                            .setSpecificComponent(ObjectProtos.SpecificComponent.newBuilder().setComponentName("A"))))
+                    .build();
+            final ObjectProtos.DecisionPoint.Builder decisionPoint = ObjectProtos.DecisionPoint.newBuilder().setSource(state);
+            for (Edge edge : start ? edges : List.of(findEdge(decision.getEdge().getId()))) {
+                decisionPoint.addEdges(ObjectProtos.Edge.newBuilder().setId(edge.getId()));
+            }
+            return QueryProtos.SimulationStepResponse.newBuilder().addNewDecisionPoints(decisionPoint).build();
+        });
+        server = engine.start(location + ":5000");
+
+        final BackendInstance backend = new BackendInstance();
+        backend.setName("Fake engine");
+        backend.setLocal(false);
+        backend.setBackendLocation(location);
+        backend.setPortStart(5000);
+        backend.setPortEnd(5000);
+        BackendHelper.setDefaultBackendInstance(backend);
+
+        simulationHandler = new SimulationHandler(backendDriver, Runnable::run);
+        simulationHandler.setComposition("A");
+        simulationHandler.prefetchEnabledProperty().set(true);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        backendDriver.closeAllBackendConnections();
+        server.shutdownNow();
+    }
+
+    @Test
+    public void testPrefetchedStepIsTakenWithoutWaitingForEngine() throws InterruptedException {
+        simulationHandler.initialStep();
+        // The start of the simulation and the successors along each of the three enabled edges
+        await(() -> engine.simulationSteps.get() == 4);
+        Thread.sleep(100);
+
+        final long stepsBefore = engine.simulationSteps.get();
+        simulationHandler.selectedEdge.set(edges.get(1));
+        simulationHandler.nextStep();
+
+        // The state is moved to synchronously, as the response is already known
+        Assertions.assertEquals(edges.get(1).getId(), getCurrentLocation());
+        Assertions.assertEquals(1, simulationHandler.getPrefetchHits());
+        Assertions.assertEquals(0, simulationHandler.getPrefetchMisses());
+
+        // Only the successor of the new state is prefetched
+        await(() -> engine.simulationSteps.get() == stepsBefore + 1);
+        Thread.sleep(100);
+        Assertions.assertEquals(stepsBefore + 1, engine.simulationSteps.get());
+    }
+
+    @Test
+    public void testPrefetchesAreCancelledWhenStateChanges() throws InterruptedException {
+        engine.setLatency(FakeEngine.Latency.fixed(400));
+        simulationHandler.initialStep();
+        // The first prefetch is sent on the single connection, while the others are queued behind it
+        await(() -> engine.simulationSteps.get() == 2);
+        Thread.sleep(50);
+
+        final long startTime = System.currentTimeMillis();
+        simulationHandler.selectedEdge.set(edges.get(2));
+        simulationHandler.nextStep();
+        await(() -> edges.get(2).getId().equals(getCurrentLocation()));
+
+        // The step does not wait for the running prefetch to release the connection
+        Assertions.assertTrue(System.currentTimeMillis() - startTime < 600, "Step took " + (System.currentTimeMillis() - startTime) + " ms");
+        Thread.sleep(600);
+
+        // The start, the first prefetch, the step and the prefetch from the new state, but not the queued prefetches
+        Assertions.assertEquals(4, engine.simulationSteps.get());
+        Assertions.assertEquals(0, simulationHandler.getPrefetchHits());
+        Assertions.assertEquals(1, simulationHandler.getPrefetchMisses());
+    }
+
+    @Test
+    public void testRunningPrefetchIsTakenOverWhenItsStepIsTaken() throws InterruptedException {
+        engine.setLatency(FakeEngine.Latency.fixed(400));
+        simulationHandler.initialStep();
+        // The prefetch along the first edge is running, while the others are queued behind it
+        await(() -> engine.simulationSteps.get() == 2);
+        Thread.sleep(50);
+
+        final long startTime = System.currentTimeMillis();
+        simulationHandler.selectedEdge.set(edges.get(0));
+        simulationHandler.nextStep();
+        await(() -> edges.get(0).getId().equals(getCurrentLocation()));
+
+        // The step is answered by the running prefetch, instead of being requested again after it
+        Assertions.assertTrue(System.currentTimeMillis() - startTime < 600, "Step took " + (System.currentTimeMillis() - startTime) + " ms");
+        Thread.sleep(600);
+
+        // The start, the first prefetch and the prefetch from the new state
+        Assertions.assertEquals(3, engine.simulationSteps.get());
+        Assertions.assertEquals(1, simulationHandler.getPrefetchHits());
+        Assertions.assertEquals(0, simulationHandler.getPrefetchMisses());
+    }
+
+    @Test
+    public void testNothingIsPrefetchedWhileDisabled() throws InterruptedException {
+        simulationHandler.prefetchEnabledProperty().set(false);
+        simulationHandler.initialStep();
+        await(() -> simulationHandler.getCurrentState() != null);
+        Thread.sleep(200);
+
+        Assertions.assertEquals(1, engine.simulationSteps.get());
+    }
+
+    private String getCurrentLocation() {
+        if (simulationHandler.getCurrentState() == null) return null;
+        return simulationHandler.getCurrentState().getLocations().get(0).getValue();
+    }
+
+    private Edge findEdge(String id) {
+        return edges.stream().filter(edge -> edge.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
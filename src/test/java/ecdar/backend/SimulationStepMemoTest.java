@@ -0,0 +1,100 @@
+package ecdar.backend;
+
+import EcdarProtoBuf.ObjectProtos;
+import EcdarProtoBuf.QueryProtos;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SimulationStepMemoTest {
+    @Test
+    public void testStepIsFoundByEqualDecision() {
+        final SimulationStepMemo memo = new SimulationStepMemo(10, Long.MAX_VALUE);
+        memo.put(key("L0", "E1", "hash"), response("L1"));
+
+        // A decision built anew from the same state and edge, as when stepping forward again after previewing
+        final QueryProtos.SimulationStepResponse response = memo.get(key("L0", "E1", "hash"));
+
+        Assertions.assertEquals(response("L1"), response);
+        Assertions.assertEquals(1, memo.getHits());
+    }
+
+    @Test
+    public void testStepDependsOnSourceEdgeAndComponentsHash() {
+        final SimulationStepMemo memo = new SimulationStepMemo(10, Long.MAX_VALUE);
+        memo.put(key("L0", "E1", "hash"), response("L1"));
+
+        Assertions.assertNull(memo.get(key("L1", "E1", "hash")));
+        Assertions.assertNull(memo.get(key("L0", "E2", "hash")));
+        Assertions.assertNull(memo.get(key("L0", "E1", "changed")));
+        Assertions.assertEquals(3, memo.getMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStepIsEvicted() {
+        final SimulationStepMemo memo = new SimulationStepMemo(2, Long.MAX_VALUE);
+        memo.put(key("L0", "E1", "hash"), response("L1"));
+        memo.put(key("L1", "E2", "hash"), response("L2"));
+
+        // Use the first step, such that the second is the least recently used
+        Assertions.assertNotNull(memo.get(key("L0", "E1", "hash")));
+        memo.put(key("L2", "E3", "hash"), response("L3"));
+
+        Assertions.assertEquals(2, memo.size());
+        Assertions.assertNotNull(memo.get(key("L0", "E1", "hash")));
+        Assertions.assertNull(memo.get(key("L1", "E2", "hash")));
+    }
+
+    @Test
+    public void testStepsAreEvictedWhenSizeCapIsExceeded() {
+        final long stepSize = sizeOf("L0", "E1", "L1");
+        final SimulationStepMemo memo = new SimulationStepMemo(100, stepSize * 2);
+        memo.put(key("L0", "E1", "hash"), response("L1"));
+        memo.put(key("L1", "E1", "hash"), response("L2"));
+        memo.put(key("L2", "E1", "hash"), response("L3"));
+
+        Assertions.assertEquals(2, memo.size());
+        Assertions.assertTrue(memo.getSizeInBytes() <= stepSize * 2);
+        Assertions.assertNull(memo.get(key("L0", "E1", "hash")));
+    }
+
+    @Test
+    public void testClearForgetsAllSteps() {
+        final SimulationStepMemo memo = new SimulationStepMemo(10, Long.MAX_VALUE);
+        memo.put(key("L0", "E1", "hash"), response("L1"));
+        memo.clear();
+
+        Assertions.assertEquals(0, memo.size());
+        Assertions.assertEquals(0, memo.getSizeInBytes());
+        Assertions.assertNull(memo.get(key("L0", "E1", "hash")));
+    }
+
+    private static SimulationStepMemo.Key key(String location, String edgeId, String componentsHash) {
+        return new SimulationStepMemo.Key(decision(location, edgeId), "A", componentsHash);
+    }
+
+    private static ObjectProtos.Decision decision(String location, String edgeId) {
+        final ObjectProtos.Edge edge = ObjectProtos.Edge.newBuilder()
+                .setId(edgeId)
+                .setSpecificComponent(ObjectProtos.SpecificComponent.newBuilder().setComponentName("A"))
+                .build();
+        return ObjectProtos.Decision.newBuilder().setSource(state(location)).setEdge(edge).build();
+    }
+
+    private static ObjectProtos.State state(String location) {
+        final ObjectProtos.Location protoLocation = ObjectProtos.Location.newBuilder().setId(location).build();
+        return ObjectProtos.State.newBuilder()
+                .setLocationTuple(ObjectProtos.LocationTuple.newBuilder().addLocations(protoLocation))
+                .build();
+    }
+
+    private static QueryProtos.SimulationStepResponse response(String location) {
+        final ObjectProtos.DecisionPoint decisionPoint = ObjectProtos.DecisionPoint.newBuilder()
+                .setSource(state(location))
+                .build();
+        return QueryProtos.SimulationStepResponse.newBuilder().addNewDecisionPoints(decisionPoint).build();
+    }
+
+    private static long sizeOf(String location, String edgeId, String target) {
+        return decision(location, edgeId).getSerializedSize() + response(target).getSerializedSize();
+    }
+}